@@ -0,0 +1,356 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import hudson.Functions;
+
+/**
+ * A compact binary changelog, which checkout writes next to the XML changelog if enabled in the 
+ * global configuration. The file is memory mapped when read, except on Windows, the number of 
+ * entries is in the header and the entries have fixed width records, hence counting and paging 
+ * neither parse nor read the entries not asked for. The records, paths and string offsets are 
+ * checked once when the file is opened, the string data is read when asked for.
+ * 
+ * The layout, with all numbers big-endian:
+ * <pre>
+ *   header   magic, format version, number of entries, number of paths, number of strings
+ *   entries  one record per entry: date (long), user, version, event description, operation, 
+ *            event id, comment (string ids), index of the first path and number of paths
+ *   paths    the string ids of the paths of all entries, in the order of the entries
+ *   strings  the offset of each string in the string data followed by the end offset, then 
+ *            the string data, UTF-8 encoded
+ * </pre>
+ * A string id refers to a string of the dictionary, where each distinct string is stored once. 
+ * The id -1 is null, as is the date Long.MIN_VALUE. 
+ */
+public final class BinaryChangeLog {
+    public static final String FILE_EXTENSION = ".bin";
+
+    // "SCCL"
+    private static final int MAGIC          = 0x5343434c;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE    = 5 * 4;
+    private static final int RECORD_SIZE    = 8 + 8 * 4;
+    private static final int NULL           = -1;
+    private static final long NO_DATE       = Long.MIN_VALUE;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // only absolute gets are used on the buffer, hence it may be read by several threads
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int paths;
+    private final int strings;
+    private final int pathsPosition;
+    private final int stringOffsetsPosition;
+    private final int stringDataPosition;
+
+    private BinaryChangeLog(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a binary changelog of format version " + FORMAT_VERSION);
+        }
+        size = buffer.getInt(8);
+        paths = buffer.getInt(12);
+        strings = buffer.getInt(16);
+
+        long position = HEADER_SIZE + (long) size * RECORD_SIZE;
+        pathsPosition = (int) Math.min(position, Integer.MAX_VALUE);
+        position += (long) paths * 4;
+        stringOffsetsPosition = (int) Math.min(position, Integer.MAX_VALUE);
+        position += (long) (strings + 1) * 4;
+        stringDataPosition = (int) Math.min(position, Integer.MAX_VALUE);
+
+        // a truncated file, for instance if checkout was interrupted while writing it
+        if (size < 0 || paths < 0 || strings < 0 || position > buffer.limit() 
+                                   || position + buffer.getInt(stringOffsetsPosition + strings * 4) > buffer.limit()) {
+            throw new IOException("The binary changelog is truncated");
+        }
+        checkReferences();
+    }
+
+    /**
+     * Checks that the records refer to existing strings and paths and that the strings are 
+     * within the string data, hence reading the entries can't fail on a damaged file.
+     * 
+     * @throws IOException if any reference is out of range
+     */
+    private void checkReferences() throws IOException {
+        for (int index = 0; index < size; index++) {
+            int p = HEADER_SIZE + index * RECORD_SIZE;
+
+            for (int field = 8; field < 32; field += 4) {
+                checkStringId(buffer.getInt(p + field), "entry " + index);
+            }
+            int firstPath = buffer.getInt(p + 32);
+            int n = buffer.getInt(p + 36);
+
+            if (firstPath < 0 || n < 0 || (long) firstPath + n > paths) {
+                throw new IOException("Entry " + index + " of the binary changelog refers to missing paths");
+            }
+        }
+
+        for (int i = 0; i < paths; i++) {
+            checkStringId(buffer.getInt(pathsPosition + i * 4), "path " + i);
+        }
+
+        // the strings follow each other within the string data, the end offset was checked already
+        int previous = 0;
+        for (int i = 0; i <= strings; i++) {
+            int offset = buffer.getInt(stringOffsetsPosition + i * 4);
+
+            if (offset < previous) {
+                throw new IOException("String " + i + " of the binary changelog is out of range");
+            }
+            previous = offset;
+        }
+    }
+
+    /**
+     * @param id
+     * @param referrer what refers to the string, for the message
+     * @throws IOException if id is neither NULL nor the id of a string
+     */
+    private void checkStringId(int id, String referrer) throws IOException {
+        if (id < NULL || id >= strings) {
+            throw new IOException("The " + referrer + " of the binary changelog refers to a missing string: " + id);
+        }
+    }
+
+    /**
+     * @param changelogFile the XML changelog
+     * @return the binary changelog written next to changelogFile, named after it as a build 
+     *         directory may hold several changelogs
+     */
+    public static File getFile(File changelogFile) {
+        return new File(changelogFile.getParentFile(), changelogFile.getName() + FILE_EXTENSION);
+    }
+
+    /**
+     * Maps file into memory. The mapping stays valid after the file is closed and is released 
+     * when the BinaryChangeLog is garbage collected. 
+     * 
+     * On Windows a mapped file can't be deleted until then, which would keep Jenkins from 
+     * deleting the build, hence the file is read into memory instead.
+     * 
+     * @param file
+     * @return the binary changelog of file
+     * @throws IOException if file isn't a complete binary changelog
+     */
+    public static BinaryChangeLog open(File file) throws IOException {
+        return open(file, Functions.isWindows() == false);
+    }
+
+    /**
+     * @param file
+     * @param map true to map file into memory, false to read it
+     * @return the binary changelog of file
+     * @throws IOException if file isn't a complete binary changelog
+     */
+    static BinaryChangeLog open(File file, boolean map) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try {
+            FileChannel channel = raf.getChannel();
+
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The binary changelog is too large to be read: " + file);
+            }
+
+            if (map == true) {
+                return new BinaryChangeLog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // reading until the buffer is full
+            }
+            buffer.flip();
+            return new BinaryChangeLog(buffer);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param offset the index of the first entry
+     * @param limit the maximum number of entries
+     * @return the entries from offset, only these records are read
+     */
+    public List<SimpleClearCaseChangeLogEntry> getEntries(int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), size);
+        int to = (limit > size - from) ? size : from + limit;
+        List<SimpleClearCaseChangeLogEntry> ret = new ArrayList<SimpleClearCaseChangeLogEntry>(to - from);
+
+        for (int i = from; i < to; i++) {
+            ret.add(getEntry(i));
+        }
+        return ret;
+    }
+
+    private SimpleClearCaseChangeLogEntry getEntry(int index) {
+        int p = HEADER_SIZE + index * RECORD_SIZE;
+
+        long date = buffer.getLong(p);
+        SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(
+                                        (date != NO_DATE) ? new Date(date) : null, getString(buffer.getInt(p + 8)), 
+                                        getString(buffer.getInt(p + 12)), getString(buffer.getInt(p + 16)), getString(buffer.getInt(p + 20)), 
+                                        getString(buffer.getInt(p + 28)));
+        entry.setEventId(getString(buffer.getInt(p + 24)));
+
+        int firstPath = buffer.getInt(p + 32);
+        int paths = buffer.getInt(p + 36);
+
+        for (int i = 0; i < paths; i++) {
+            entry.addPath(getString(buffer.getInt(pathsPosition + (firstPath + i) * 4)));
+        }
+        return entry;
+    }
+
+    private String getString(int id) {
+        if (id == NULL) {
+            return null;
+        }
+        int start = buffer.getInt(stringOffsetsPosition + id * 4);
+        int end = buffer.getInt(stringOffsetsPosition + (id + 1) * 4);
+        byte[] bytes = new byte[end - start];
+
+        // a duplicate as a relative bulk get changes the position of the buffer
+        ByteBuffer data = buffer.duplicate();
+        data.position(stringDataPosition + start);
+        data.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    /**
+     * @param file where to write
+     * @param entries
+     * @throws IOException
+     */
+    public static void write(File file, List<SimpleClearCaseChangeLogEntry> entries) throws IOException {
+        Dictionary dictionary = new Dictionary();
+        int[] records = new int[entries.size() * 6];
+        List<Integer> paths = new ArrayList<Integer>();
+
+        // the string ids have to be known before anything is written
+        int r = 0;
+        for (SimpleClearCaseChangeLogEntry e : entries) {
+            records[r++] = dictionary.getId(e.getUser());
+            records[r++] = dictionary.getId(e.getVersion());
+            records[r++] = dictionary.getId(e.getEventDescription());
+            records[r++] = dictionary.getId(e.getOperation());
+            records[r++] = dictionary.getId(e.getEventId());
+            records[r++] = dictionary.getId(e.getComment());
+
+            for (String path : e.getAffectedPaths()) {
+                paths.add(dictionary.getId(path));
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            out.writeInt(paths.size());
+            out.writeInt(dictionary.strings.size());
+
+            r = 0;
+            int firstPath = 0;
+            for (SimpleClearCaseChangeLogEntry e : entries) {
+                out.writeLong((e.getDate() != null) ? e.getDate().getTime() : NO_DATE);
+                for (int i = 0; i < 6; i++) {
+                    out.writeInt(records[r++]);
+                }
+                int n = e.getAffectedPaths().size();
+                out.writeInt(firstPath);
+                out.writeInt(n);
+                firstPath += n;
+            }
+
+            for (Integer id : paths) {
+                out.writeInt(id);
+            }
+
+            int offset = 0;
+            for (byte[] s : dictionary.strings) {
+                out.writeInt(offset);
+                offset += s.length;
+            }
+            out.writeInt(offset);
+
+            for (byte[] s : dictionary.strings) {
+                out.write(s);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * The distinct strings of a changelog being written, UTF-8 encoded in the order of their ids.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+        private final List<byte[]> strings = new ArrayList<byte[]>();
+
+        public int getId(String s) {
+            if (s == null) {
+                return NULL;
+            }
+            Integer ret = ids.get(s);
+
+            if (ret == null) {
+                ret = strings.size();
+                ids.put(s, ret);
+                strings.add(s.getBytes(UTF8));
+            }
+            return ret;
+        }
+    }
+}
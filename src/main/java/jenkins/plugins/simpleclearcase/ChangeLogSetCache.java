@@ -0,0 +1,175 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import hudson.model.AbstractBuild;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jenkins.plugins.simpleclearcase.util.PropUtils;
+
+/**
+ * Remembers what was read of the changelogs parsed, so that parsing the changelog of a build 
+ * again, for instance after the build was reloaded from disk, neither opens the binary changelog 
+ * nor looks for the number of entries again. Only what doesn't depend on the build is kept, that 
+ * is the binary changelog or the number of entries of the XML changelog, and a new set of the 
+ * build asked for is created from it, hence no build is kept from being garbage collected. 
+ * 
+ * A changelog is kept by its file as long as the file hasn't changed, that is has the same size 
+ * and modification time. The binary changelogs are softly referenced, hence dropped when memory 
+ * is short, and the least recently used changelogs are dropped when the cache is full.
+ */
+public class ChangeLogSetCache {
+    private static final String STAMP_SEPARATOR = ":";
+
+    private static final ChangeLogSetCache INSTANCE = 
+                                       new ChangeLogSetCache(PropUtils.getChangeLogCacheMaxEntries());
+
+    private final Map<String, CachedChangeLog> changeLogs;
+    private long hits;
+    private long misses;
+
+    public static ChangeLogSetCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param maxEntries the number of changelogs kept at most
+     */
+    ChangeLogSetCache(final int maxEntries) {
+        // access ordered, hence the eldest entry is the least recently used one
+        this.changeLogs = new LinkedHashMap<String, CachedChangeLog>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedChangeLog> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param file a changelog
+     * @return what identifies the content of the changelog and of its binary changelog, which 
+     *         is to be taken before the changelog is parsed
+     */
+    public static String stamp(File file) {
+        File binary = BinaryChangeLog.getFile(file);
+
+        return file.length() + STAMP_SEPARATOR + file.lastModified() + STAMP_SEPARATOR 
+                             + binary.length() + STAMP_SEPARATOR + binary.lastModified();
+    }
+
+    /**
+     * @param file the changelog
+     * @param stamp the stamp of the changelog now
+     * @param build the build the set is of
+     * @return a new set of build, created from what was kept of the changelog, null if nothing 
+     *         is kept or the changelog has changed since
+     */
+    public synchronized SimpleClearCaseChangeLogSet get(File file, String stamp, AbstractBuild<?, ?> build) {
+        String key = file.getAbsolutePath();
+        CachedChangeLog cached = changeLogs.get(key);
+        SimpleClearCaseChangeLogSet ret = (cached != null && cached.stamp.equals(stamp)) 
+                                                                      ? cached.createSet(build) : null;
+
+        if (ret == null) {
+            if (cached != null) {
+                changeLogs.remove(key);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return ret;
+    }
+
+    /**
+     * @param file the changelog
+     * @param stamp the stamp of the changelog taken before it was parsed
+     * @param set the set parsed from the changelog, of which only what doesn't depend on its 
+     *        build is kept
+     */
+    public synchronized void put(File file, String stamp, SimpleClearCaseChangeLogSet set) {
+        changeLogs.put(file.getAbsolutePath(), new CachedChangeLog(stamp, set));
+    }
+
+    public synchronized int size() {
+        return changeLogs.size();
+    }
+
+    /**
+     * @return the number of sets created by get
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of sets not created by get, which then had to be parsed
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Forgets all changelogs.
+     */
+    public synchronized void invalidate() {
+        changeLogs.clear();
+    }
+
+    private static class CachedChangeLog {
+        private final String stamp;
+        private final File file;
+        private final int size;
+        // null if the entries are read from the XML changelog
+        private final SoftReference<BinaryChangeLog> binary;
+
+        public CachedChangeLog(String stamp, SimpleClearCaseChangeLogSet set) {
+            this.stamp = stamp;
+            this.file = set.getFile();
+            this.size = set.getKnownSize();
+            this.binary = (set.getBinaryChangeLog() != null) 
+                                   ? new SoftReference<BinaryChangeLog>(set.getBinaryChangeLog()) : null;
+        }
+
+        /**
+         * @param build
+         * @return a new set of build, null if the binary changelog has been dropped or the 
+         *         set was held in memory
+         */
+        public SimpleClearCaseChangeLogSet createSet(AbstractBuild<?, ?> build) {
+            if (binary == null) {
+                return (file != null) ? new SimpleClearCaseChangeLogSet(build, file, size) : null;
+            }
+            BinaryChangeLog changeLog = binary.get();
+            return (changeLog != null) ? new SimpleClearCaseChangeLogSet(build, changeLog) : null;
+        }
+    }
+}
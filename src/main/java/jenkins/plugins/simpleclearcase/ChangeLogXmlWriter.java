@@ -0,0 +1,229 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the changelog XML element by element to a stream, without building a document first. 
+ * The output is the same as a DOM Transformer writes, that is the characters escaped and, if 
+ * indenting, the elements indented, in the same way.
+ */
+class ChangeLogXmlWriter {
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+    private static final String INDENT      = "  ";
+
+    private final Writer out;
+    private final boolean indent;
+    private final String lineSeparator = System.getProperty("line.separator");
+    private int depth;
+    // if the start tag of the latest started element isn't closed, as it may turn out empty
+    private boolean pendingStartTag;
+    // if text was written to the latest started element, then its end tag follows the text
+    private boolean textWritten;
+
+    /**
+     * @param out where to write, isn't closed by the writer
+     * @param indent if each element is put on a line of its own, indented by its depth
+     */
+    public ChangeLogXmlWriter(Writer out, boolean indent) {
+        this.out = out;
+        this.indent = indent;
+    }
+
+    public void startDocument() throws IOException {
+        out.write(DECLARATION);
+    }
+
+    /**
+     * Adds an attribute to the element just started, before anything is written to the element.
+     * 
+     * @param name
+     * @param value if null no attribute is written
+     */
+    public void attribute(String name, String value) throws IOException {
+        if (pendingStartTag == false) {
+            throw new IllegalStateException("Attribute " + name + " after the content of the element");
+        }
+        if (value == null) {
+            return;
+        }
+        out.write(' ');
+        out.write(name);
+        out.write("=\"");
+        writeEscaped(value, true);
+        out.write('"');
+    }
+
+    /**
+     * Writes text to the element just started, which then is ended right after the text.
+     * 
+     * @param text
+     */
+    public void text(String text) throws IOException {
+        if (pendingStartTag == true) {
+            out.write('>');
+            pendingStartTag = false;
+        }
+        writeEscaped(text, false);
+        textWritten = true;
+    }
+
+    public void endDocument() throws IOException {
+        if (indent == true) {
+            out.write(lineSeparator);
+        }
+        out.flush();
+    }
+
+    /**
+     * Starts an element holding other elements, which is ended by endElement.
+     */
+    public void startElement(String name) throws IOException {
+        startTag();
+        out.write('<');
+        out.write(name);
+        pendingStartTag = true;
+        depth++;
+    }
+
+    public void endElement(String name) throws IOException {
+        depth--;
+
+        if (pendingStartTag == true) {
+            out.write("/>");
+            pendingStartTag = false;
+            return;
+        }
+        if (textWritten == true) {
+            textWritten = false;
+        } else {
+            newLine();
+        }
+        out.write("</");
+        out.write(name);
+        out.write('>');
+    }
+
+    /**
+     * Writes an element holding text only.
+     * 
+     * @param name
+     * @param text may be null, which is written as an empty element
+     */
+    public void element(String name, String text) throws IOException {
+        startTag();
+        out.write('<');
+        out.write(name);
+
+        if (text == null || text.length() == 0) {
+            out.write("/>");
+            return;
+        }
+        out.write('>');
+        writeEscaped(text, false);
+        out.write("</");
+        out.write(name);
+        out.write('>');
+    }
+
+    private void startTag() throws IOException {
+        if (pendingStartTag == true) {
+            out.write('>');
+            pendingStartTag = false;
+        }
+        newLine();
+    }
+
+    private void newLine() throws IOException {
+        if (indent == false) {
+            return;
+        }
+        out.write(lineSeparator);
+
+        for (int i = 0; i < depth; i++) {
+            out.write(INDENT);
+        }
+    }
+
+    /**
+     * @param text
+     * @param attribute if text is an attribute value, which in addition has its quotes, newlines 
+     *                  and tabs escaped as they would be lost otherwise
+     */
+    private void writeEscaped(String text, boolean attribute) throws IOException {
+        int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            switch (c) {
+            case '<':
+                out.write("&lt;");
+                break;
+            case '>':
+                out.write("&gt;");
+                break;
+            case '&':
+                out.write("&amp;");
+                break;
+            case '"':
+                out.write(attribute ? "&quot;" : "\"");
+                break;
+            case '\n':
+                if (attribute == true) {
+                    writeCharacterReference(c);
+                } else {
+                    out.write(lineSeparator);
+                }
+                break;
+            case '\t':
+                if (attribute == true) {
+                    writeCharacterReference(c);
+                } else {
+                    out.write(c);
+                }
+                break;
+            default:
+                if (c < 0x20 || (c >= 0x7F && c <= 0x9F)) {
+                    // control characters, including carriage return which would be lost otherwise
+                    writeCharacterReference(c);
+                } else if (Character.isHighSurrogate(c) && i + 1 < length 
+                                                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    writeCharacterReference(Character.toCodePoint(c, text.charAt(++i)));
+                } else {
+                    out.write(c);
+                }
+            }
+        }
+    }
+
+    private void writeCharacterReference(int codePoint) throws IOException {
+        out.write("&#");
+        out.write(Integer.toString(codePoint));
+        out.write(';');
+    }
+}
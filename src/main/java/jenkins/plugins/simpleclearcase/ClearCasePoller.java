@@ -0,0 +1,687 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Hudson;
+import hudson.model.TaskListener;
+import hudson.triggers.SCMTrigger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.plugins.simpleclearcase.util.DebugHelper;
+import jenkins.plugins.simpleclearcase.util.LoadRuleIndex;
+import jenkins.plugins.simpleclearcase.util.PropUtils;
+
+/**
+ * Polls ClearCase once for all jobs watching the same view and branch, instead of once for each 
+ * job. The jobs are grouped by view, branch and filter, and the history of each group is fetched 
+ * for its root load rules only, that is the load rules no other load rule of the group prefixes, 
+ * since the previous query of the group. The events are routed to the load rules of the group 
+ * prefixing their paths, through a LoadRuleIndex, and the jobs with newer events than their 
+ * last build are triggered.
+ * 
+ * The polling of a job then looks up the latest events of its load rules here, see lookup, and 
+ * only runs cleartool itself when the poller can't answer, such as when the job was added since 
+ * the latest query or the poller has stopped. The events are kept for a while, such that the 
+ * checkout of a build triggered by them only fetches the events since the latest query, see 
+ * getHistory.
+ */
+public class ClearCasePoller {
+    public static final String LOG_POLL = "ClearCasePoller.poll";
+
+    private static final String KEY_SEPARATOR = "\u0000";
+    // each query starts a while before the previous one started, as the clock of the ClearCase 
+    // server may differ from ours, events fetched twice are only recorded once
+    private static final long OVERLAP = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Logger LOGGER = Logger.getLogger(ClearCasePoller.class.getName());
+
+    private static final ClearCasePoller INSTANCE = 
+                      new ClearCasePoller(TimeUnit.MINUTES.toMillis(PropUtils.getCentralPollingHistoryMinutes()));
+
+    // for how many milliseconds the events are kept for checkout
+    private final long historyRetention;
+    private final Map<String, Group> groups = new HashMap<String, Group>();
+
+    public static ClearCasePoller get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param historyRetention for how many milliseconds the events are kept for checkout
+     */
+    ClearCasePoller(long historyRetention) {
+        this.historyRetention = historyRetention;
+    }
+
+    /**
+     * @param scm
+     * @return the key of the group of scm
+     */
+    public static String key(SimpleClearCaseSCM scm) {
+        return scm.getViewname() + KEY_SEPARATOR + scm.getBranch() + KEY_SEPARATOR + scm.getFilter();
+    }
+
+    /**
+     * Queries the history of the groups which haven't been queried for interval, and triggers 
+     * the jobs with new events.
+     * 
+     * @param listener
+     * @param interval milliseconds between the queries of a group
+     * @throws InterruptedException
+     */
+    public void poll(TaskListener listener, long interval) throws InterruptedException {
+        Map<String, List<AbstractProject<?, ?>>> projects = new LinkedHashMap<String, List<AbstractProject<?, ?>>>();
+        Map<String, List<SimpleClearCaseSCM>> scms = new LinkedHashMap<String, List<SimpleClearCaseSCM>>();
+
+        for (AbstractProject<?, ?> project : getProjects()) {
+            SimpleClearCaseSCM scm = (SimpleClearCaseSCM) project.getScm();
+            String key = key(scm);
+
+            if (projects.containsKey(key) == false) {
+                projects.put(key, new ArrayList<AbstractProject<?, ?>>());
+                scms.put(key, new ArrayList<SimpleClearCaseSCM>());
+            }
+            projects.get(key).add(project);
+            scms.get(key).add(scm);
+        }
+        long now = System.currentTimeMillis();
+        List<String> due = subscribe(scms, now, interval);
+
+        for (String key : due) {
+            SimpleClearCaseSCM scm = scms.get(key).get(0);
+            DebugHelper.info(listener, "%s: Querying view %s, branch %s for %d jobs", LOG_POLL, 
+                                            scm.getViewname(), scm.getBranch(), projects.get(key).size());
+            try {
+                Set<String> changed = query(key, scm, listener);
+
+                if (changed.isEmpty() == false) {
+                    trigger(projects.get(key), changed, listener);
+                }
+            } catch (IOException e) {
+                // the jobs of the group poll by themselves until a query succeeds
+                LOGGER.log(Level.WARNING, "Couldn't query the history of view " + scm.getViewname(), e);
+                DebugHelper.error(listener, "%s: Couldn't query the history of view %s, e: %s", LOG_POLL, 
+                                                                         scm.getViewname(), e.getMessage());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<AbstractProject<?, ?>> getProjects() {
+        List<AbstractProject<?, ?>> ret = new ArrayList<AbstractProject<?, ?>>();
+
+        for (AbstractProject<?, ?> project : (List<AbstractProject<?, ?>>) (List<?>) 
+                                                       Hudson.getInstance().getAllItems(AbstractProject.class)) {
+            if (project.isDisabled() == false && project.getScm() instanceof SimpleClearCaseSCM) {
+                ret.add(project);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Updates the groups to the jobs of now, groups without jobs are forgotten. The load rules 
+     * new to a group take their latest event from the events recorded, and those no query covers 
+     * yet are watched from now.
+     * 
+     * @param scms the SCMs of the jobs by the key of their group
+     * @param now
+     * @param interval milliseconds between the queries of a group
+     * @return the keys of the groups to query
+     */
+    synchronized List<String> subscribe(Map<String, List<SimpleClearCaseSCM>> scms, long now, long interval) {
+        List<String> ret = new ArrayList<String>();
+        groups.keySet().retainAll(scms.keySet());
+
+        for (Map.Entry<String, List<SimpleClearCaseSCM>> e : scms.entrySet()) {
+            Group group = groups.get(e.getKey());
+
+            if (group == null) {
+                group = new Group();
+                groups.put(e.getKey(), group);
+            }
+            group.subscribe(e.getValue(), now);
+
+            if (now - group.lastQuery >= interval) {
+                ret.add(e.getKey());
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param key
+     * @param scm an SCM of the group, which the ClearTool is created for
+     * @param listener
+     * @return the load rules with new events
+     * @throws IOException if lshistory fails
+     * @throws InterruptedException
+     */
+    private Set<String> query(String key, SimpleClearCaseSCM scm, TaskListener listener) 
+                                                                throws IOException, InterruptedException {
+        List<String> roots;
+        LoadRuleDateMap since = new LoadRuleDateMap();
+
+        synchronized (this) {
+            Group group = groups.get(key);
+            roots = new ArrayList<String>(group.nextSince.keySet());
+
+            for (String root : roots) {
+                since.setBuildTime(root, group.nextSince.get(root));
+            }
+        }
+        long started = System.currentTimeMillis();
+        List<SimpleClearCaseChangeLogEntry> entries = scm.createPollingClearTool(listener).lshistory(roots, since, null);
+
+        return record(key, roots, entries, started);
+    }
+
+    /**
+     * Records the events of a query of the group.
+     * 
+     * @param key
+     * @param roots the root load rules queried
+     * @param entries the events
+     * @param started when the query started
+     * @return the load rules with new events
+     */
+    synchronized Set<String> record(String key, List<String> roots, List<SimpleClearCaseChangeLogEntry> entries, 
+                                                                                            long started) {
+        Set<String> ret = new HashSet<String>();
+        Group group = groups.get(key);
+
+        if (group == null) {
+            return ret;
+        }
+
+        for (String root : roots) {
+            if (group.nextSince.containsKey(root)) {
+                group.nextSince.put(root, toSeconds(started - OVERLAP));
+            }
+        }
+        group.lastQuery = started;
+        group.trimHistory(toSeconds(started - historyRetention));
+
+        BitSet matches = new BitSet();
+        for (SimpleClearCaseChangeLogEntry entry : entries) {
+            if (entry.getDate() == null) {
+                continue;
+            }
+            group.addHistory(entry);
+            matches.clear();
+            group.index.match(entry, matches);
+
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                String lr = group.index.getLoadRule(i);
+                Date latest = group.latest.getBuiltTime(lr);
+
+                if (latest == null || entry.getDate().after(latest)) {
+                    group.latest.setBuildTime(lr, entry.getDate());
+                    ret.add(lr);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param time
+     * @return time rounded down to whole seconds, as lshistory takes its since date in seconds
+     */
+    private static Date toSeconds(long time) {
+        return new Date(time - time % 1000);
+    }
+
+    /**
+     * Schedules a build of the polling jobs which have new events since their last build.
+     */
+    private void trigger(List<AbstractProject<?, ?>> projects, Set<String> changed, TaskListener listener) {
+        for (AbstractProject<?, ?> project : projects) {
+            SimpleClearCaseSCM scm = (SimpleClearCaseSCM) project.getScm();
+            AbstractBuild<?, ?> lastBuild = project.getLastBuild();
+
+            // jobs which don't poll aren't built on changes, and jobs without a build poll by 
+            // themselves, as we don't know their baseline
+            if (project.getTrigger(SCMTrigger.class) == null || lastBuild == null 
+                                          || containsAny(scm.getLoadRulesAsList(), changed) == false) {
+                continue;
+            }
+            SimpleClearCaseRevisionState state = lastBuild.getAction(SimpleClearCaseRevisionState.class);
+            if (state == null) {
+                continue;
+            }
+            LoadRuleDateMap baseline = state.getLoadRuleDateMap();
+            LoadRuleDateMap remote = lookup(scm, baseline, lastBuild.getTime(), Long.MAX_VALUE);
+
+            if (remote != null && SimpleClearCaseSCM.isChanged(baseline, remote) == true) {
+                DebugHelper.info(listener, "%s: Triggering %s, remote: %s", LOG_POLL, project.getFullName(), remote);
+                project.scheduleBuild(project.getQuietPeriod(), 
+                                 new SCMTrigger.SCMTriggerCause("ClearCase poller found changes: " + remote));
+            }
+        }
+    }
+
+    private static boolean containsAny(List<String> loadRules, Set<String> changed) {
+        for (String lr : loadRules) {
+            if (changed.contains(lr)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Answers the polling of a job from the events recorded, in the same way as 
+     * ClearTool.probeLatestCommitDates.
+     * 
+     * @param scm of the job
+     * @param baseline the latest commit dates of the baseline
+     * @param since the date the job polls since
+     * @param maxAge the number of milliseconds since the latest query, after which the events 
+     *               recorded are too old to answer
+     * @return a copy of baseline, where the load rules with newer events have the date of the 
+     *         latest one, null if the events recorded don't cover the load rules since since
+     */
+    public synchronized LoadRuleDateMap lookup(SimpleClearCaseSCM scm, LoadRuleDateMap baseline, Date since, 
+                                                                                           long maxAge) {
+        Group group = groups.get(key(scm));
+
+        // without a date the job polls the default lshistory window, which we don't follow
+        if (group == null || since == null || group.lastQuery == 0 
+                                            || System.currentTimeMillis() - group.lastQuery > maxAge) {
+            return null;
+        }
+        List<String> loadRules = scm.getLoadRulesAsList();
+
+        for (String lr : loadRules) {
+            Date watched = group.getWatchedSince(lr);
+
+            // a load rule which hasn't been queried since it was subscribed isn't known yet
+            if (watched == null || watched.after(since) || watched.getTime() > group.lastQuery) {
+                return null;
+            }
+        }
+        LoadRuleDateMap ret = (baseline != null) ? baseline.copy() : new LoadRuleDateMap();
+        boolean empty = ret.isEmpty();
+
+        for (String lr : loadRules) {
+            // as when probing, load rules which aren't in a non-empty baseline don't count
+            if (empty || ret.containsLoadRule(lr)) {
+                Date threshold = ret.getBuiltTime(lr);
+                Date latest = group.latest.getBuiltTime(lr);
+
+                if (latest != null && (threshold == null || latest.after(threshold))) {
+                    ret.setBuildTime(lr, latest);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Hands the events recorded to the checkout of a job, which then only fetches the events 
+     * recorded since the latest query.
+     * 
+     * A load rule which has been quiet for longer than the events are kept is still covered, as 
+     * the checkout of the previous build fetched its events up to previousBuild, hence it has 
+     * none between its date in previous and then.
+     * 
+     * @param scm of the job
+     * @param previous the latest commit dates of the previous build, the events are fetched since
+     * @param previousBuild when the previous build started, null if unknown
+     * @return the events since previous, in the same way as ClearTool.lshistory, up to the dates 
+     *         to fetch the remaining events since, null if the events recorded don't cover the 
+     *         load rules since previous
+     */
+    public synchronized PolledHistory getHistory(SimpleClearCaseSCM scm, LoadRuleDateMap previous, 
+                                                                                  Date previousBuild) {
+        Group group = groups.get(key(scm));
+
+        if (group == null || group.lastQuery == 0) {
+            return null;
+        }
+        List<String> loadRules = scm.getLoadRulesAsList();
+        LoadRuleDateMap since = new LoadRuleDateMap();
+        BitSet matches = new BitSet();
+
+        for (String lr : loadRules) {
+            Date from = previous.getBuiltTime(lr);
+            Date known = group.getKnownSince(lr);
+
+            // without a date lshistory lists a default window, which we don't follow
+            if (from == null || known == null) {
+                return null;
+            }
+
+            if (known.after(from) == true) {
+                // the clock of the ClearCase server may be behind ours
+                Date quietUntil = (previousBuild != null) ? new Date(previousBuild.getTime() - OVERLAP) : null;
+
+                if (quietUntil == null || known.after(quietUntil) 
+                                       || hasHistory(group, group.index.indexOf(lr), quietUntil, matches)) {
+                    return null;
+                }
+            }
+            since.setBuildTime(lr, group.nextSince.get(group.getRoot(lr)));
+        }
+        List<SimpleClearCaseChangeLogEntry> entries = new ArrayList<SimpleClearCaseChangeLogEntry>();
+
+        // as lshistory of each load rule, an event of several load rules is listed for each of them
+        for (String lr : loadRules) {
+            int i = group.index.indexOf(lr);
+            Date from = previous.getBuiltTime(lr);
+            Date to = since.getBuiltTime(lr);
+
+            for (SimpleClearCaseChangeLogEntry entry : group.history) {
+                if (entry.getDate().before(from) == false && entry.getDate().before(to) == true) {
+                    matches.clear();
+                    group.index.match(entry, matches);
+
+                    if (matches.get(i) == true) {
+                        entries.add(entry.copy());
+                    }
+                }
+            }
+        }
+        return new PolledHistory(entries, since);
+    }
+
+    /**
+     * @return true if any event recorded before date matches the load rule at index, which then 
+     *         wasn't as quiet as its date in the previous build says
+     */
+    private static boolean hasHistory(Group group, int index, Date date, BitSet matches) {
+        for (SimpleClearCaseChangeLogEntry entry : group.history) {
+            if (entry.getDate().before(date) == true) {
+                matches.clear();
+                group.index.match(entry, matches);
+
+                if (matches.get(index) == true) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The events recorded for a checkout, and the dates to fetch the remaining events since.
+     */
+    public static class PolledHistory {
+        private final List<SimpleClearCaseChangeLogEntry> entries;
+        private final LoadRuleDateMap since;
+
+        public PolledHistory(List<SimpleClearCaseChangeLogEntry> entries, LoadRuleDateMap since) {
+            this.entries = entries;
+            this.since = since;
+        }
+
+        /**
+         * @return the events, copies of the recorded ones
+         */
+        public List<SimpleClearCaseChangeLogEntry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return for each load rule the date to fetch the events since, the events recorded are 
+         *         before it
+         */
+        public LoadRuleDateMap getSince() {
+            return since;
+        }
+    }
+
+    /**
+     * The jobs of a view, branch and filter, and the events of their load rules.
+     */
+    private static class Group {
+        // all load rules of the jobs
+        private LoadRuleIndex index = new LoadRuleIndex(new ArrayList<String>());
+        // for each load rule since when its latest event is recorded, and for each root load 
+        // rule since when to query next
+        private final Map<String, Date> watchedSince = new HashMap<String, Date>();
+        private final Map<String, Date> nextSince = new HashMap<String, Date>();
+        // the date of the latest event recorded for each load rule
+        private final LoadRuleDateMap latest = new LoadRuleDateMap();
+        // when the latest query started, 0 before the first one
+        private long lastQuery;
+        // the events recorded since trimmedBefore, and the keys telling them apart, as the 
+        // overlapping queries fetch some events twice
+        private final List<SimpleClearCaseChangeLogEntry> history = new ArrayList<SimpleClearCaseChangeLogEntry>();
+        private final Set<String> historyKeys = new HashSet<String>();
+        private Date trimmedBefore;
+
+        public void subscribe(List<SimpleClearCaseSCM> scms, long now) {
+            List<String> loadRules = new ArrayList<String>();
+            for (SimpleClearCaseSCM scm : scms) {
+                loadRules.addAll(scm.getLoadRulesAsList());
+            }
+            LoadRuleIndex previous = index;
+            Map<String, Date> previousNextSince = new HashMap<String, Date>(nextSince);
+            index = new LoadRuleIndex(loadRules);
+            nextSince.clear();
+
+            for (int i = 0; i < index.size(); i++) {
+                if (index.getParent(i) == -1) {
+                    String root = index.getLoadRule(i);
+                    nextSince.put(root, getNextSince(root, previous, previousNextSince, toSeconds(now)));
+                }
+            }
+            Map<String, Date> joined = new HashMap<String, Date>();
+
+            for (int i = 0; i < index.size(); i++) {
+                String lr = index.getLoadRule(i);
+
+                if (watchedSince.containsKey(lr) == false && joined.containsKey(lr) == false) {
+                    joined.put(lr, join(lr, previous));
+                }
+            }
+            watchedSince.keySet().retainAll(new HashSet<String>(loadRules));
+            watchedSince.putAll(joined);
+        }
+
+        /**
+         * @param root a root load rule of the current index
+         * @param previous the index before the current one
+         * @param previousNextSince the dates the roots of previous were to be queried next
+         * @param now
+         * @return the date to query root next, where the queries of the previous roots it overlaps 
+         *         stopped, such that the events in between aren't missed, now if it overlaps none
+         */
+        private Date getNextSince(String root, LoadRuleIndex previous, Map<String, Date> previousNextSince, 
+                                                                                                Date now) {
+            Date ret = now;
+            String previousRoot = getRoot(previous, root);
+
+            for (Map.Entry<String, Date> e : previousNextSince.entrySet()) {
+                if ((e.getKey().equals(previousRoot) || root.equals(getRoot(index, e.getKey()))) 
+                                                                   && e.getValue().before(ret)) {
+                    ret = e.getValue();
+                }
+            }
+            return ret;
+        }
+
+        /**
+         * Rebuilds the latest event of a load rule new to the index from the events recorded.
+         * 
+         * @param loadRule
+         * @param previous the index before the current one
+         * @return since when the latest event of loadRule is recorded
+         */
+        private Date join(String loadRule, LoadRuleIndex previous) {
+            int i = index.indexOf(loadRule);
+            Date ret = null;
+            BitSet matches = new BitSet();
+
+            for (SimpleClearCaseChangeLogEntry entry : history) {
+                matches.clear();
+                index.match(entry, matches);
+
+                if (matches.get(i) == true && (ret == null || entry.getDate().after(ret))) {
+                    ret = entry.getDate();
+                }
+            }
+            latest.setBuildTime(loadRule, ret);
+
+            int p = previous.longestPrefix(loadRule);
+            if (p == -1) {
+                // its events weren't queried before, they are from when its root is queried next
+                return nextSince.get(getRoot(index, loadRule));
+            }
+            // its events were recorded along with those of the load rule prefixing it, as far 
+            // as they are still kept
+            Date watched = watchedSince.get(previous.getLoadRule(p));
+            if (trimmedBefore != null && trimmedBefore.after(watched)) {
+                return trimmedBefore;
+            }
+            return watched;
+        }
+
+        /**
+         * @param index
+         * @param path
+         * @return the root load rule of index prefixing path, null if there is none
+         */
+        private static String getRoot(LoadRuleIndex index, String path) {
+            int i = index.longestPrefix(path);
+            if (i == -1) {
+                return null;
+            }
+
+            while (index.getParent(i) != -1) {
+                i = index.getParent(i);
+            }
+            return index.getLoadRule(i);
+        }
+
+        /**
+         * @param loadRule
+         * @return the root load rule prefixing loadRule, null if loadRule isn't subscribed
+         */
+        public String getRoot(String loadRule) {
+            return (index.indexOf(loadRule) != -1) ? getRoot(index, loadRule) : null;
+        }
+
+        /**
+         * @param loadRule
+         * @return since when the latest event of loadRule is recorded, null if it isn't watched
+         */
+        public Date getWatchedSince(String loadRule) {
+            return (index.indexOf(loadRule) != -1) ? watchedSince.get(loadRule) : null;
+        }
+
+        /**
+         * @param loadRule
+         * @return since when all events of loadRule are kept, null if it isn't watched
+         */
+        public Date getKnownSince(String loadRule) {
+            Date ret = getWatchedSince(loadRule);
+
+            if (ret != null && trimmedBefore != null && trimmedBefore.after(ret)) {
+                return trimmedBefore;
+            }
+            return ret;
+        }
+
+        public void addHistory(SimpleClearCaseChangeLogEntry entry) {
+            if (historyKeys.add(historyKey(entry)) == true) {
+                history.add(entry);
+            }
+        }
+
+        /**
+         * Drops the events before date.
+         */
+        public void trimHistory(Date date) {
+            for (Iterator<SimpleClearCaseChangeLogEntry> i = history.iterator(); i.hasNext();) {
+                SimpleClearCaseChangeLogEntry entry = i.next();
+
+                if (entry.getDate().before(date) == true) {
+                    i.remove();
+                    historyKeys.remove(historyKey(entry));
+                }
+            }
+            trimmedBefore = date;
+        }
+
+        /**
+         * @param entry
+         * @return what tells the event apart, its id unless it's missing
+         */
+        private static String historyKey(SimpleClearCaseChangeLogEntry entry) {
+            if (entry.getEventId() != null) {
+                return entry.getEventId();
+            }
+            return entry.getDate().getTime() + KEY_SEPARATOR + entry.getVersion() 
+                                             + KEY_SEPARATOR + entry.getAffectedPaths();
+        }
+    }
+
+    /**
+     * Runs the poller, if central polling is enabled, in a thread of its own, as a query may 
+     * take a while.
+     */
+    @Extension
+    public static class PollerWork extends AsyncPeriodicWork {
+        public PollerWork() {
+            super("ClearCase poller");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            // the shortest interval, see SimpleClearCaseSCM.DescriptorImpl.MIN_CENTRAL_POLLING_INTERVAL
+            return MIN;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            SimpleClearCaseSCM.DescriptorImpl descriptor = SimpleClearCaseSCM.DESCRIPTOR;
+
+            if (descriptor.getCentralPolling() == true) {
+                get().poll(listener, TimeUnit.SECONDS.toMillis(descriptor.getCentralPollingInterval()));
+            }
+        }
+    }
+}
@@ -24,32 +24,53 @@
 
 package jenkins.plugins.simpleclearcase;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.Reader;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.WeakHashMap;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import jenkins.plugins.simpleclearcase.util.DateUtil;
 import jenkins.plugins.simpleclearcase.util.DebugHelper;
 import jenkins.plugins.simpleclearcase.util.PropUtils;
+import jenkins.plugins.simpleclearcase.util.TimestampCodec;
 
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Proc;
+import hudson.console.LineTransformationOutputStream;
+import hudson.model.Computer;
 import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
 import hudson.util.ArgumentListBuilder;
+import hudson.util.DaemonThreadFactory;
+
+import org.apache.commons.io.output.CountingOutputStream;
 
 public class ClearTool {
     private static final String LOG_LSHISTORY_PRIVATE = "lshistory(String filePath, Date since)";
+    private static final String LOG_FETCH_HISTORY     = "fetchHistory";
+    private static final String LOG_LSHISTORY_BATCH   = "lshistoryBatch";
+    private static final String LOG_PROBE             = "probeLatestCommitDates";
 
     private static final String ADDED_ELEMENT_QUOTATION = "\"";
     private static final String ADDED_FILE_ELEMENT      = "Added file element";
@@ -60,6 +81,7 @@ public class ClearTool {
     private static final String LSHISTORY = "lshistory";
     private static final String SETVIEW   = "setview";
     private static final String DESCRIBE  = "describe";
+    private static final String STARTVIEW = "startview";
 
     private static final String PARAM_SINCE   = "-since";
     private static final String PARAM_FMT     = "-fmt";
@@ -68,11 +90,29 @@ public class ClearTool {
     private static final String PARAM_EXEC    = "-exec";
     private static final String PARAM_BRANCH  = "-branch";
 
-    private static final String LSHISTORY_ENTRY_DATE_FORMAT = "yyyyMMdd.HHmmss";
     private static final String SINCE_DATE_FORMAT           = "d-MMM-yy.HH:mm:ss'UTC'Z";
 
     private static final String FILTER_MKBRANCH = "mkbranch";
     private static final String FILTER_RMBRANCH = "rmbranch";
+
+    // the shell spawned by setview -exec runs the batched commands, each load rules output
+    // is enclosed by the markers, the end marker also prints the exit code of lshistory
+    static final String BATCH_BEGIN_MARKER              = "@@simpleclearcase-begin@@";
+    static final String BATCH_END_MARKER                = "@@simpleclearcase-end@@";
+    private static final String BATCH_BEGIN_COMMAND     = "echo %s %d";
+    private static final String BATCH_END_COMMAND       = "echo %s %d $?";
+    private static final String BATCH_COMMAND_SEPARATOR = "; ";
+    private static final String BATCH_SHELL             = "sh";
+    private static final String BATCH_SHELL_OPTION      = "-c";
+
+    // the views started for view-extended paths on each node, the channels are weakly referenced
+    // such that the views of a node which has gone away are forgotten
+    private static final Map<VirtualChannel, Set<String>> STARTED_VIEWS = 
+                                                        new WeakHashMap<VirtualChannel, Set<String>>();
+
+    // kills the commands which run for longer than their timeout, shared by all ClearTools
+    private static final ScheduledExecutorService WATCHDOG = 
+                                            Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
     
     private Launcher     launcher;
     private TaskListener listener;
@@ -80,6 +120,12 @@ public class ClearTool {
     private String       viewname;
     private String       branch;
     private boolean      filter;
+    private int          maxConcurrentLoadRules = 1;
+    private boolean      batchLoadRules;
+    private boolean      useSessions;
+    private String       viewRoot;
+    private long         commandTimeout;
+    private long         deadline;
 
     public ClearTool(Launcher launcher, TaskListener listener, FilePath workspace, 
                                           String viewname, String branch, 
@@ -91,13 +137,64 @@ public class ClearTool {
         this.branch = branch;
         this.filter = filter;
     }
-    
+
+    /**
+     * @param maxConcurrentLoadRules the maximum number of load rules which are fetched from
+     *                               ClearCase at the same time, 1 or less means one after another.
+     */
+    public void setMaxConcurrentLoadRules(int maxConcurrentLoadRules) {
+        this.maxConcurrentLoadRules = maxConcurrentLoadRules;
+    }
+
+    /**
+     * @param batchLoadRules if true the history of all load rules is fetched through 
+     *                       one cleartool setview invocation
+     */
+    public void setBatchLoadRules(boolean batchLoadRules) {
+        this.batchLoadRules = batchLoadRules;
+    }
+
+    /**
+     * @param useSessions if true commands are executed through warm cleartool sessions from 
+     *                    the ClearToolSessionPool, when a session is available
+     */
+    public void setUseSessions(boolean useSessions) {
+        this.useSessions = useSessions;
+    }
+
+    /**
+     * @param viewRoot if not null, commands are executed against view-extended paths below 
+     *                 viewRoot, such as /view, instead of through setview -exec
+     */
+    public void setViewRoot(String viewRoot) {
+        this.viewRoot = (viewRoot != null && viewRoot.trim().isEmpty() == false) ? viewRoot.trim() : null;
+    }
+
+    /**
+     * @param commandTimeout for how many milliseconds each command may run before it is killed,
+     *                       0 or less means no limit
+     */
+    public void setCommandTimeout(long commandTimeout) {
+        this.commandTimeout = commandTimeout;
+    }
+
+    /**
+     * @param budget for how many milliseconds, from now on, this ClearTool may execute commands, 
+     *               0 or less means no limit. A command still running when the budget is used 
+     *               up is killed and no further commands are started.
+     */
+    public void setTimeBudget(long budget) {
+        this.deadline = (budget > 0) ? System.currentTimeMillis() + budget : 0;
+    }
+
     /**
      * @param viewTag
      * @return
      * @throws InterruptedException
+     * @throws ClearToolTimeoutException if cleartool was killed before it could tell, 
+     *                                   which says nothing about the view
      */
-    public boolean doesViewExist(String viewTag) throws InterruptedException {
+    public boolean doesViewExist(String viewTag) throws InterruptedException, ClearToolTimeoutException {
         ArgumentListBuilder cmd = new ArgumentListBuilder();
 
         cmd.add(LSVIEW);
@@ -105,20 +202,24 @@ public class ClearTool {
 
         try {
             execute(cmd);
+        } catch (ClearToolTimeoutException e) {
+            throw e;
         } catch (IOException e) {
             return false; // if there isn't such view
         }
         return true;
     }
 
-    public boolean doesClearCasePathExist(String path) throws InterruptedException {
+    public boolean doesClearCasePathExist(String path) throws InterruptedException, ClearToolTimeoutException {
         ArgumentListBuilder cmd = new ArgumentListBuilder();
         
         cmd.add(DESCRIBE);
-        cmd.add(path);
+        cmd.add(toViewPath(path));
 
         try {
             executeWithView(cmd, null);
+        } catch (ClearToolTimeoutException e) {
+            throw e;
         } catch (IOException e) {
             // if we get an error from cleartool it means that the path doesn't
             // exist in CC
@@ -127,10 +228,12 @@ public class ClearTool {
         return true;
     }
 
-    public boolean doesClearCaseBranchExist(String path) throws InterruptedException{
+    public boolean doesClearCaseBranchExist(String path) throws InterruptedException, ClearToolTimeoutException {
 
         try {
             lshistory(path, null);
+        } catch (ClearToolTimeoutException e) {
+            throw e;
         } catch (IOException e) {
             // under the assumption that the path is correct
             // this error would indicate branch doesn't exist
@@ -148,15 +251,183 @@ public class ClearTool {
      */
     public LoadRuleDateMap getLatestCommitDates(List<String> loadRules, 
                              LoadRuleDateMap previousCommits, Date since) throws InterruptedException, IOException {
-        LoadRuleDateMap ret = new LoadRuleDateMap();
+        Map<String, Date> sinceDates = new LinkedHashMap<String, Date>();
         for (String lr : loadRules) {
+            sinceDates.put(lr, since);
+        }
+        
+        LoadRuleDateMap ret = new LoadRuleDateMap();
+        for (Map.Entry<String, List<SimpleClearCaseChangeLogEntry>> e : fetchHistory(sinceDates).entrySet()) {
             // we fetch the latest date for load rule lr and limit the set of
             // entries from lshistory by giving the previous commit date for the load rule
-            ret.setBuildTime(lr, DateUtil.getLatestDate(lshistory(lr, since)));
+            ret.setBuildTime(e.getKey(), DateUtil.getLatestDate(e.getValue()));
         }
         return ret;
     }
 
+    /**
+     * Probes the load rules for an event newer than the baseline, instead of fetching their 
+     * whole history. The lshistory output of a load rule is only read until the first event newer
+     * than the baseline date of the load rule, then its process is killed and the remaining load 
+     * rules aren't probed, as one change is enough to prove that a build is needed.
+     * 
+     * As lshistory -recurse doesn't list the events in date order, the date found is a date newer
+     * than the baseline but not necessarily the latest one. Each probe needs a process of its own
+     * which can be killed, hence neither batch mode nor sessions are used when probing.
+     * 
+     * @param loadRules the paths where to probe for events
+     * @param baseline the latest commit dates of the baseline
+     * @param since date-time to list events recorded since (that is, at or after).
+     * @return a copy of baseline, where the load rule which proved a change, if any, has the 
+     *         date of the newer event. Comparing baseline with the returned map gives the same 
+     *         answer as comparing it with the map of getLatestCommitDates.
+     * @throws IOException if lshistory fails for a load rule before a change is proven
+     * @throws InterruptedException
+     */
+    public LoadRuleDateMap probeLatestCommitDates(List<String> loadRules, LoadRuleDateMap baseline, 
+                                           final Date since) throws InterruptedException, IOException {
+        LoadRuleDateMap ret = (baseline != null) ? baseline.copy() : new LoadRuleDateMap();
+        final Map<String, Date> thresholds = new LinkedHashMap<String, Date>();
+
+        for (String lr : loadRules) {
+            // a load rule which isn't in a non-empty baseline cannot make the baseline older than 
+            // remote, see LoadRuleDateMap.isBefore, hence there is no point in probing it
+            if (ret.isEmpty() || ret.containsLoadRule(lr)) {
+                thresholds.put(lr, ret.getBuiltTime(lr));
+            }
+        }
+        int threads = Math.min(maxConcurrentLoadRules, thresholds.size());
+
+        if (threads <= 1) {
+            for (Map.Entry<String, Date> e : thresholds.entrySet()) {
+                Date found = probeShared(e.getKey(), since, e.getValue());
+                if (found != null) {
+                    ret.setBuildTime(e.getKey(), found);
+                    return ret;
+                }
+            }
+            return ret;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new DaemonThreadFactory());
+        try {
+            CompletionService<Date> completion = new ExecutorCompletionService<Date>(pool);
+            Map<Future<Date>, String> futures = new HashMap<Future<Date>, String>();
+
+            for (final Map.Entry<String, Date> e : thresholds.entrySet()) {
+                futures.put(completion.submit(new Callable<Date>() {
+                    public Date call() throws Exception {
+                        return probeShared(e.getKey(), since, e.getValue());
+                    }
+                }), e.getKey());
+            }
+
+            // the probes are taken as they finish, the first one proving a change cancels the rest
+            for (int i = 0; i < futures.size(); i++) {
+                Future<Date> f = completion.take();
+                try {
+                    Date found = f.get();
+                    if (found != null) {
+                        ret.setBuildTime(futures.get(f), found);
+                        return ret;
+                    }
+                } catch (ExecutionException e) {
+                    String errMsg = String.format("%s: lshistory failed for load rule: %s, cancelling " 
+                                                     + "the remaining load rules", LOG_PROBE, futures.get(f));
+                    DebugHelper.error(listener, errMsg);
+
+                    if (e.getCause() instanceof InterruptedException) {
+                        throw (InterruptedException) e.getCause();
+                    }
+                    if (e.getCause() instanceof ClearToolTimeoutException) {
+                        // keeps the diagnostics of the timeout for the caller
+                        throw (ClearToolTimeoutException) e.getCause();
+                    }
+                    throw new IOException(errMsg, e.getCause());
+                }
+            }
+        } finally {
+            // interrupts the probes which are still running, if any, which kills their processes
+            pool.shutdownNow();
+        }
+        return ret;
+    }
+
+    /**
+     * Probes through the LshistoryCache, hence jobs probing the same load rule of the same view 
+     * and branch share the lshistory.
+     * 
+     * @see #probe(String, Date, Date)
+     */
+    private Date probeShared(final String loadRule, final Date since, final Date threshold) 
+                                                               throws InterruptedException, IOException {
+        String key = LshistoryCache.key(viewname, branch, loadRule, filter);
+        // the probe of another job is waited for no longer than our own lshistory may run
+        long wait = getCommandTimeout(lshistoryCommand(loadRule, since));
+
+        return LshistoryCache.get().probe(key, since, threshold, wait, new LshistoryCache.Probe() {
+            public Date call() throws InterruptedException, IOException {
+                return probe(loadRule, since, threshold);
+            }
+        });
+    }
+
+    /**
+     * @param loadRule the path to probe
+     * @param since date-time to list events recorded since (that is, at or after).
+     * @param threshold the baseline date of the load rule, null if any event is newer
+     * @return the date of the first event newer than threshold, null if there wasn't any
+     * @throws IOException if lshistory fails before an event newer than threshold is found
+     * @throws InterruptedException
+     */
+    private Date probe(String loadRule, Date since, Date threshold) throws InterruptedException, IOException {
+        if (viewRoot != null) {
+            startView();
+        }
+        ArgumentListBuilder cmd = appendOptions(lshistoryCommand(loadRule, since), true);
+        LshistoryProbeOutputStream out = new LshistoryProbeOutputStream(threshold);
+
+        long timeout = getCommandTimeout(cmd);
+        long started = System.currentTimeMillis();
+
+        Proc proc = createProcStarter(cmd, null, out).start();
+        out.setProc(proc);
+
+        Watchdog watchdog = new Watchdog(proc, null, timeout);
+        int ret;
+        boolean timedOut;
+        try {
+            ret = proc.join();
+        } finally {
+            timedOut = watchdog.stop();
+        }
+        out.close();
+
+        Date found = out.getFound();
+
+        if (found == null && timedOut == true) {
+            throw timeoutException(cmd, timeout, started);
+        }
+
+        // a killed process has a non-zero exit code, which is fine once we found what we need
+        if (found == null && ret != 0) {
+            String errMsg = String.format("ClearTool: Exit code wasn't ok, "
+                                        + "code: %d. Tried to execute: %s", ret, cmd.toStringWithQuote());
+            DebugHelper.error(listener, errMsg);
+
+            if (viewRoot != null) {
+                forgetStartedView();
+            }
+            throw new IOException(errMsg);
+        }
+
+        if (found != null) {
+            DebugHelper.info(listener, "%s: load rule %s has an event newer than baseline, stopped " 
+                                                               + "reading lshistory", LOG_PROBE, loadRule);
+        }
+        return found;
+    }
+
     /**
      * @param loadRules loadRules All the file paths which we want to fetch commit
      *                  changes from SCM
@@ -172,16 +443,14 @@ public class ClearTool {
     public List<SimpleClearCaseChangeLogEntry> lshistory(List<String> loadRules, 
                                LoadRuleDateMap previousCommit, Date since) throws InterruptedException, IOException {
         List<SimpleClearCaseChangeLogEntry> entries = new ArrayList<SimpleClearCaseChangeLogEntry>();
+        Map<String, Date> sinceDates = new LinkedHashMap<String, Date>();
 
         for (String lr : loadRules) {
-            List<SimpleClearCaseChangeLogEntry> l;
-
-            if (previousCommit == null) {
-                l = lshistory(lr, null);
-            } else {
-                l = lshistory(lr, previousCommit.getBuiltTime(lr));
-            }
+            sinceDates.put(lr, (previousCommit == null) ? null : previousCommit.getBuiltTime(lr));
+        }
 
+        // the entries are merged in load rule order, independent of which fetch finished first
+        for (List<SimpleClearCaseChangeLogEntry> l : fetchHistory(sinceDates).values()) {
             if (l != null) {
                 entries.addAll(l);
             }
@@ -189,76 +458,199 @@ public class ClearTool {
         return entries;
     }
 
+    /**
+     * Fetches the history of every load rule, either batched into one cleartool invocation or
+     * with up to maxConcurrentLoadRules lshistory invocations running at the same time. If any 
+     * load rule fails the remaining fetches are cancelled and the failure of the first failing 
+     * load rule, in load rule order, is thrown.
+     * 
+     * @param sinceDates maps each load rule to the date from when we want to fetch entries, 
+     *                   the iteration order of the map is the load rule order
+     * @return the entries of each load rule, in the same order as sinceDates
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private Map<String, List<SimpleClearCaseChangeLogEntry>> fetchHistory(Map<String, Date> sinceDates) 
+                                                                throws InterruptedException, IOException {
+        Map<String, List<SimpleClearCaseChangeLogEntry>> ret = 
+                                                new LinkedHashMap<String, List<SimpleClearCaseChangeLogEntry>>();
+        int threads = Math.min(maxConcurrentLoadRules, sinceDates.size());
+
+        // a session already runs all load rules through the same cleartool process
+        if (batchLoadRules == true && useSessions == false && sinceDates.size() > 1) {
+            return lshistoryBatch(sinceDates);
+        }
+
+        if (threads <= 1) {
+            for (Map.Entry<String, Date> e : sinceDates.entrySet()) {
+                ret.put(e.getKey(), lshistory(e.getKey(), e.getValue()));
+            }
+            return ret;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new DaemonThreadFactory());
+        try {
+            Map<String, Future<List<SimpleClearCaseChangeLogEntry>>> futures = 
+                                      new LinkedHashMap<String, Future<List<SimpleClearCaseChangeLogEntry>>>();
+
+            for (final Map.Entry<String, Date> e : sinceDates.entrySet()) {
+                futures.put(e.getKey(), pool.submit(new Callable<List<SimpleClearCaseChangeLogEntry>>() {
+                    public List<SimpleClearCaseChangeLogEntry> call() throws Exception {
+                        return lshistory(e.getKey(), e.getValue());
+                    }
+                }));
+            }
+
+            for (Map.Entry<String, Future<List<SimpleClearCaseChangeLogEntry>>> f : futures.entrySet()) {
+                try {
+                    ret.put(f.getKey(), f.getValue().get());
+                } catch (ExecutionException e) {
+                    String errMsg = String.format("%s: lshistory failed for load rule: %s, cancelling " 
+                                             + "the remaining load rules", LOG_FETCH_HISTORY, f.getKey());
+                    DebugHelper.error(listener, errMsg);
+
+                    if (e.getCause() instanceof InterruptedException) {
+                        throw (InterruptedException) e.getCause();
+                    }
+                    if (e.getCause() instanceof ClearToolTimeoutException) {
+                        // keeps the diagnostics of the timeout for the caller
+                        throw (ClearToolTimeoutException) e.getCause();
+                    }
+                    throw new IOException(errMsg, e.getCause());
+                }
+            }
+        } finally {
+            // interrupts the fetches which are still running, if any
+            pool.shutdownNow();
+        }
+        return ret;
+    }
+
     /**
      * @param filePath
      *            a specific file path which we want to fetch commit changes
      *            from SCM.
      * @param since
-     * @return a list of ChangeLog entries, parsed from the rawLshistory
+     * @return a list of ChangeLog entries, parsed while lshistory is producing its output
      * 
      * @throws InterruptedException
      * @throws IOException
      */
     private List<SimpleClearCaseChangeLogEntry> lshistory(String filePath,
                                                    Date since) throws InterruptedException, IOException {
-        BufferedReader in = new BufferedReader(rawLshistory(filePath, since));
-        List<SimpleClearCaseChangeLogEntry> ret = new ArrayList<SimpleClearCaseChangeLogEntry>();
-
-        String readline = in.readLine();
-        SimpleClearCaseChangeLogEntry currentEntry = null;
-
-        while (readline != null) {
-            // empty lines cannot be parsed
-            if (readline.trim().isEmpty()) {
-                readline = in.readLine();
-                continue;
-            }
-
-            // a commit entry could be split over several lines hence we need to check for additional info
-            if (readline.startsWith(ADDED_FILE_ELEMENT)
-                    || readline.startsWith(ADDED_DIRECTORY_ELEMENT)) {
-                if (currentEntry == null) {
-                    DebugHelper.error(listener, "%s: CurrentEntry is null when a ADDED_FILE_ELEMENT or "
-                                            + "ADDED_DIRECTORY_ELEMENT popped up, shouldn't happen. row " 
-                                            + "is: %s", LOG_LSHISTORY_PRIVATE, readline);
-                }
+        LshistoryOutputStream out = new LshistoryOutputStream();
+
+        executeWithView(lshistoryCommand(filePath, since), out);
+        // parses the last line, if it wasn't terminated by a newline
+        out.close();
 
-                // with the formatting we have the ELEMENT row wraps the
-                // filepath with quote.
-                int startIndex = readline.indexOf(ADDED_ELEMENT_QUOTATION) + 1;
-                int endIndex   = readline.indexOf(ADDED_ELEMENT_QUOTATION, startIndex);
-                
-                currentEntry.addPath(readline.substring(startIndex, endIndex));
-            } else {
-                // here we actually parse the entry and build an entry from it
-                SimpleClearCaseChangeLogEntry tmpEntry = parseRawLsHistoryEntry(readline);
-
-                // if its a valid entry we add it to collection and update current entry such that
-                // new paths like "added file directory" are also added to the entry
-                if (tmpEntry != null) {
-                    currentEntry = tmpEntry;
-                    ret.add(currentEntry);
-                } else {
-                    DebugHelper.error(listener, "%s: Wasn't able to parse row, hence we skip it, " 
-                                                        + "line: %s", LOG_LSHISTORY_PRIVATE, readline);
+        return out.getEntries(0);
+    }
+
+    /**
+     * Fetches the history of all load rules through one setview -exec invocation, or one shell if
+     * view-extended paths are used, the lshistory of each load rule is run by the same shell and 
+     * its output is enclosed by a begin and end marker.
+     * The end marker carries the exit code of the load rules lshistory.
+     * 
+     * @param sinceDates maps each load rule to the date from when we want to fetch entries
+     * @return the entries of each load rule, in the same order as sinceDates
+     * @throws IOException if setview fails or if lshistory fails for any load rule
+     * @throws InterruptedException
+     */
+    private Map<String, List<SimpleClearCaseChangeLogEntry>> lshistoryBatch(Map<String, Date> sinceDates)
+                                                                throws InterruptedException, IOException {
+        List<String> loadRules = new ArrayList<String>(sinceDates.keySet());
+        StringBuilder script = new StringBuilder();
+
+        for (int i = 0; i < loadRules.size(); i++) {
+            String lr = loadRules.get(i);
+            ArgumentListBuilder cmd = lshistoryCommand(lr, sinceDates.get(lr)).prepend(CLEARTOOL);
+
+            if (i > 0) {
+                script.append(BATCH_COMMAND_SEPARATOR);
+            }
+            script.append(String.format(BATCH_BEGIN_COMMAND, BATCH_BEGIN_MARKER, i));
+            script.append(BATCH_COMMAND_SEPARATOR);
+            script.append(cmd.toStringWithQuote());
+            script.append(BATCH_COMMAND_SEPARATOR);
+            script.append(String.format(BATCH_END_COMMAND, BATCH_END_MARKER, i));
+        }
+
+        LshistoryOutputStream out = new LshistoryOutputStream(loadRules.size());
+
+        if (viewRoot != null) {
+            // the commands refer to view-extended paths, hence any shell will do
+            startView();
+            ArgumentListBuilder cmd = new ArgumentListBuilder();
+            cmd.add(BATCH_SHELL);
+            cmd.add(BATCH_SHELL_OPTION);
+            cmd.add(script.toString());
+            execute(cmd, null, out);
+        } else {
+            execute(appendViewOptions(script.toString()), null, out);
+        }
+        out.close();
+
+        Map<String, List<SimpleClearCaseChangeLogEntry>> ret = 
+                                                new LinkedHashMap<String, List<SimpleClearCaseChangeLogEntry>>();
+
+        for (int i = 0; i < loadRules.size(); i++) {
+            Integer exitCode = out.getExitCode(i);
+
+            if (exitCode == null || exitCode != 0) {
+                String errMsg = String.format("%s: lshistory failed for load rule: %s, exit code: %s", 
+                                                          LOG_LSHISTORY_BATCH, loadRules.get(i), exitCode);
+                DebugHelper.error(listener, errMsg);
+
+                if (viewRoot != null) {
+                    forgetStartedView();
                 }
+                throw new IOException(errMsg);
             }
-            readline = in.readLine();
+            ret.put(loadRules.get(i), out.getEntries(i));
         }
-        in.close();
         return ret;
     }
 
+    /**
+     * @param line a begin or end marker line, formatted as: marker index [exitcode]
+     * @param marker the marker line starts with
+     * @return the index and the exit code of the marker line, the exit code is null if missing
+     */
+    private static String[] splitBatchMarker(String line, String marker) {
+        String fields = line.substring(marker.length()).trim();
+        int separator = fields.indexOf(' ');
+
+        if (separator < 0) {
+            return new String[] { fields, null };
+        }
+        return new String[] { fields.substring(0, separator), fields.substring(separator + 1).trim() };
+    }
+
+    /**
+     * @param field the index of a begin or end marker, see splitBatchMarker
+     * @param size the number of load rules in the batch
+     * @return the load rule index of the marker, -1 if it isn't a valid index
+     */
+    private static int parseBatchIndex(String field, int size) {
+        int index;
+
+        try {
+            index = Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            index = -1;
+        }
+        return (index >= 0 && index < size) ? index : -1;
+    }
+
     /**
      * @param filePath to the element in repository
      * @param since  from when we want to fetch history entries from
      * 
-     * @return reader to the byte array input stream with raw entries
-     * 
-     * @throws InterruptedException
-     * @throws IOException
+     * @return the lshistory command, without any cleartool prefix
      */
-    private Reader rawLshistory(String filePath, Date since) throws InterruptedException, IOException {
+    private ArgumentListBuilder lshistoryCommand(String filePath, Date since) {
         ArgumentListBuilder cmd = new ArgumentListBuilder();
 
         // fetching locale and time zone settings from properties file
@@ -286,15 +678,8 @@ public class ClearTool {
         cmd.add(PARAM_FMT);
         cmd.add(SimpleClearCaseChangeLogEntry.LSHISTORY_FORMATTING);
         cmd.add(PARAM_NCO);
-        cmd.add(filePath);
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        executeWithView(cmd, baos);
-
-        byte[] result = baos.toByteArray();
-        baos.close();
-
-        return new InputStreamReader(new ByteArrayInputStream(result));
+        cmd.add(toViewPath(filePath));
+        return cmd;
     }
 
     /**
@@ -311,15 +696,10 @@ public class ClearTool {
         }
         ArgumentListBuilder ret = null;
 
-        // we need to add setview with exec call as prefix if a view is needed
-        if (needsView == true) {
-            ret = new ArgumentListBuilder();
-
-            ret.add(CLEARTOOL);
-            ret.add(SETVIEW);
-            ret.add(PARAM_EXEC);
-            ret.add(cmd.prepend(CLEARTOOL).toStringWithQuote());
-            ret.add(this.viewname);
+        // we need to add setview with exec call as prefix if a view is needed, unless the
+        // command refers to view-extended paths which doesn't need a set view
+        if (needsView == true && viewRoot == null) {
+            ret = appendViewOptions(cmd.prepend(CLEARTOOL).toStringWithQuote());
         } else {
             // if we don't need a view to execute we just prepend with cleartool
             ret = cmd.prepend(CLEARTOOL);
@@ -327,6 +707,21 @@ public class ClearTool {
         return ret;
     }
 
+    /**
+     * @param command the command line which setview executes in the spawned shell
+     * @return the setview command, executing command inside of the view
+     */
+    private ArgumentListBuilder appendViewOptions(String command) {
+        ArgumentListBuilder ret = new ArgumentListBuilder();
+
+        ret.add(CLEARTOOL);
+        ret.add(SETVIEW);
+        ret.add(PARAM_EXEC);
+        ret.add(command);
+        ret.add(this.viewname);
+        return ret;
+    }
+
     /**
      * @param cmd
      * @return true if command was successfully executed
@@ -360,23 +755,179 @@ public class ClearTool {
      */
     private boolean execute(ArgumentListBuilder cmd, FilePath workDir,  OutputStream out,
                                              boolean needsView) throws IOException, InterruptedException {
-        if (workDir == null) {
-            workDir = workspace;
+        if (needsView == true && viewRoot != null) {
+            startView();
         }
-        // append neccessary flags and command for execution
-        cmd = appendOptions(cmd, needsView);
 
-        // setting ProcStarter properties
-        Launcher.ProcStarter procStarter = this.launcher.launch().cmds(cmd);
+        try {
+            if (useSessions == true) {
+                Boolean ret = executeInSession(cmd, out, needsView && viewRoot == null);
+                if (ret != null) {
+                    return ret;
+                }
+            }
+            // append neccessary flags and command for execution
+            return execute(appendOptions(cmd, needsView), workDir, out);
+        } catch (IOException e) {
+            if (needsView == true && viewRoot != null) {
+                // the view might have been stopped since we started it, start it again next time
+                forgetStartedView();
+            }
+            throw e;
+        }
+    }
 
-        if (workDir != null) {
-            procStarter = procStarter.pwd(workDir);
+    /**
+     * Starts the view with cleartool startview, such that its view-extended paths are accessible, 
+     * unless the view already has been started on the node by any ClearTool.
+     * 
+     * @throws IOException if the view couldn't be started
+     * @throws InterruptedException
+     */
+    private void startView() throws IOException, InterruptedException {
+        synchronized (STARTED_VIEWS) {
+            Set<String> views = STARTED_VIEWS.get(launcher.getChannel());
+            if (views != null && views.contains(viewname)) {
+                return;
+            }
         }
 
-        if (out != null) {
-            procStarter = procStarter.stdout(out);
+        ArgumentListBuilder cmd = new ArgumentListBuilder();
+        cmd.add(CLEARTOOL);
+        cmd.add(STARTVIEW);
+        cmd.add(viewname);
+        execute(cmd, null, null);
+
+        synchronized (STARTED_VIEWS) {
+            Set<String> views = STARTED_VIEWS.get(launcher.getChannel());
+            if (views == null) {
+                views = new HashSet<String>();
+                STARTED_VIEWS.put(launcher.getChannel(), views);
+            }
+            views.add(viewname);
+        }
+    }
+
+    private void forgetStartedView() {
+        synchronized (STARTED_VIEWS) {
+            Set<String> views = STARTED_VIEWS.get(launcher.getChannel());
+            if (views != null) {
+                views.remove(viewname);
+            }
+        }
+    }
+
+    /**
+     * @param path a path in ClearCase, such as a load rule
+     * @return the view-extended path, or path itself if we don't use view-extended paths
+     */
+    private String toViewPath(String path) {
+        if (viewRoot == null) {
+            return path;
+        }
+        return getViewPathPrefix() + (path.startsWith("/") ? path : "/" + path);
+    }
+
+    /**
+     * @param path a path from cleartool output
+     * @return path without its view-extended prefix, if it has any
+     */
+    private String fromViewPath(String path) {
+        if (viewRoot == null || path.startsWith(getViewPathPrefix()) == false) {
+            return path;
+        }
+        return path.substring(getViewPathPrefix().length());
+    }
+
+    private String getViewPathPrefix() {
+        return (viewRoot.endsWith("/") ? viewRoot : viewRoot + "/") + viewname;
+    }
+
+    /**
+     * @param cmd the cleartool sub command to execute
+     * @param out output from executed command is pushed to this stream
+     * @param needsView
+     * @return true if command was successfully executed, null if there wasn't any session 
+     *         available and the command should be executed by a new process
+     * @throws IOException if the status of the command is above 0
+     * @throws InterruptedException
+     */
+    private Boolean executeInSession(ArgumentListBuilder cmd, OutputStream out, 
+                                              boolean needsView) throws IOException, InterruptedException {
+        long timeout = getCommandTimeout(cmd);
+        long started = System.currentTimeMillis();
+        ClearToolSessionPool pool = ClearToolSessionPool.get();
+        ClearToolSession session;
+        try {
+            // starting or health checking the session counts against the timeout of the command
+            session = pool.checkout(launcher, needsView ? viewname : null, timeout);
+        } catch (ClearToolTimeoutException e) {
+            throw timeoutException(cmd, timeout, started);
+        }
+
+        if (session == null) {
+            return null;
+        }
+
+        CountingOutputStream counter = (out != null) ? new CountingOutputStream(out) : null;
+        long remaining = (timeout > 0) ? Math.max(timeout - (System.currentTimeMillis() - started), 1) : 0;
+        Watchdog watchdog = new Watchdog(null, session, remaining);
+        int ret;
+        try {
+            ret = session.execute(cmd, counter);
+        } catch (IOException e) {
+            if (watchdog.stop() == true) {
+                // the session was killed by the watchdog, which already has discarded it
+                throw timeoutException(cmd, timeout, started);
+            }
+            // the session crashed, if it didn't produce any output yet we can still 
+            // execute the command with a new process instead
+            if (counter == null || counter.getCount() == 0) {
+                DebugHelper.error(listener, "ClearTool: session died, retrying without session: %s", 
+                                                                                     e.getMessage());
+                return null;
+            }
+            throw e;
+        } finally {
+            watchdog.stop();
+            pool.checkin(session);
+        }
+
+        if (ret != 0) {
+            String errMsg = String.format("ClearTool: Status from session wasn't ok, "
+                                        + "code: %d. Tried to execute: %s", ret, cmd.toStringWithQuote());
+            DebugHelper.error(listener, errMsg);
+            throw new IOException(errMsg);
+        }
+        return true;
+    }
+
+    /**
+     * @param cmd the complete command line to execute
+     * @param workDir  where we execute the command from
+     * @param out output from executed command is pushed to this steram
+     * @return true if command was successfully executed
+     * @throws IOException if return code of process is above 0
+     * @throws InterruptedException
+     */
+    private boolean execute(ArgumentListBuilder cmd, FilePath workDir, 
+                                            OutputStream out) throws IOException, InterruptedException {
+        long timeout = getCommandTimeout(cmd);
+        long started = System.currentTimeMillis();
+
+        Proc proc = createProcStarter(cmd, workDir, out).start();
+        Watchdog watchdog = new Watchdog(proc, null, timeout);
+        int ret;
+        boolean timedOut;
+        try {
+            ret = proc.join();
+        } finally {
+            timedOut = watchdog.stop();
+        }
+
+        if (timedOut == true) {
+            throw timeoutException(cmd, timeout, started);
         }
-        int ret = procStarter.join();
 
         if (ret != 0) {
             String errMsg = String.format("ClearTool: Exit code wasn't ok, "
@@ -392,46 +943,454 @@ public class ClearTool {
         return true;
     }
 
-    private SimpleClearCaseChangeLogEntry parseRawLsHistoryEntry(String readline) {
-        // ClearCase returns with a specific formatting on date
-        SimpleDateFormat fmt = new SimpleDateFormat(LSHISTORY_ENTRY_DATE_FORMAT, 
-                                                                  new Locale(PropUtils.getLocale()));
+    /**
+     * @param cmd the command which is about to be executed
+     * @return the timeout of the command in milliseconds, 0 if there isn't any
+     * @throws ClearToolTimeoutException if the time budget already is used up
+     */
+    private long getCommandTimeout(ArgumentListBuilder cmd) throws ClearToolTimeoutException {
+        if (deadline <= 0) {
+            return Math.max(commandTimeout, 0);
+        }
+        long remaining = deadline - System.currentTimeMillis();
 
-        // see the ChangeLogEntry.LSHISTORY_FORMATTING for details regarding parameters in one entry
-        String[] splitted = readline.split(SimpleClearCaseChangeLogEntry.LSHISTORY_SPLIT_SEQUENCE);
+        if (remaining <= 0) {
+            throw timeoutException(cmd, 0, System.currentTimeMillis());
+        }
+        return (commandTimeout > 0) ? Math.min(commandTimeout, remaining) : remaining;
+    }
 
-        Date entryDate = null;
+    /**
+     * @param cmd the command which timed out
+     * @param timeout the timeout which applied to the command
+     * @param started when the command was started
+     * @return the exception to throw, after having logged it
+     */
+    private ClearToolTimeoutException timeoutException(ArgumentListBuilder cmd, long timeout, long started) {
+        // if the timeout is shorter than the one of each command it was given by the budget
+        boolean budgetExceeded = (commandTimeout <= 0 || timeout < commandTimeout);
+        ClearToolTimeoutException ret = new ClearToolTimeoutException(cmd.toStringWithQuote(), viewname, 
+                                    timeout, System.currentTimeMillis() - started, budgetExceeded);
+        DebugHelper.error(listener, ret.getMessage());
+        return ret;
+    }
 
-        try {
-            entryDate = fmt.parse(splitted[0]);
-        } catch (ParseException e) {
-            // if we cannot parse the date then the whole entry will be
-            // irrelevant and we just return null
-            // calling method will log the line
+    /**
+     * @param cmd the complete command line to execute
+     * @param workDir  where we execute the command from, the workspace if null
+     * @param out output from executed command is pushed to this steram
+     * @return a ProcStarter ready to be started
+     */
+    private Launcher.ProcStarter createProcStarter(ArgumentListBuilder cmd, FilePath workDir, 
+                                                                                     OutputStream out) {
+        if (workDir == null) {
+            workDir = workspace;
         }
 
-        if (entryDate == null) {
-            return null;
+        // setting ProcStarter properties
+        Launcher.ProcStarter procStarter = this.launcher.launch().cmds(cmd);
+
+        if (workDir != null) {
+            procStarter = procStarter.pwd(workDir);
+        }
+
+        if (out != null) {
+            procStarter = procStarter.stdout(out);
         }
+        return procStarter;
+    }
 
-        String user             = splitted[1];
-        String path             = splitted[2];
-        String version          = splitted[3];
-        String eventDescription = splitted[4];
-        String operation        = splitted[5];
-        // if there isn't a comment we have an element less
-        String comment          = (splitted.length > 6) ? splitted[6] : ""; 
+    /**
+     * Parses lshistory output line by line as the process writes it, so we never hold more than
+     * the current line of raw output in memory. In batch mode the begin and end markers decide 
+     * which load rule the lines belong to, otherwise all lines belong to the load rule at index 0.
+     */
+    class LshistoryOutputStream extends LineTransformationOutputStream {
+        private final LshistoryParser[] parsers;
+        private final Integer[] exitCodes;
+        private final boolean batch;
+        private int current;
 
-        // we filter away events that consist of creation and deletion of branches
-        // if filter is true
-        if (filter == true && 
-                (operation.equals(FILTER_MKBRANCH) || operation.equals(FILTER_RMBRANCH))) {
-            return null;
+        public LshistoryOutputStream() {
+            parsers   = new LshistoryParser[] { new LshistoryParser() };
+            exitCodes = new Integer[1];
+            batch     = false;
+            current   = 0;
+        }
+
+        /**
+         * @param size the number of load rules in the batch
+         */
+        public LshistoryOutputStream(int size) {
+            parsers   = new LshistoryParser[size];
+            exitCodes = new Integer[size];
+            batch     = true;
+            current   = -1;
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) throws IOException {
+            String readline = trimEOL(new String(b, 0, len));
+            // a line of a comment may look like a marker, but it is inside a record
+            boolean inRecord = (current >= 0 && parsers[current].isInRecord() == true);
+
+            if (batch == true && inRecord == false && readline.startsWith(BATCH_BEGIN_MARKER)) {
+                current = parseBatchIndex(splitBatchMarker(readline, BATCH_BEGIN_MARKER)[0], parsers.length);
+                if (current >= 0) {
+                    parsers[current] = new LshistoryParser();
+                }
+            } else if (batch == true && inRecord == false && readline.startsWith(BATCH_END_MARKER)) {
+                // the end marker is formatted as: marker index exitcode
+                String[] fields = splitBatchMarker(readline, BATCH_END_MARKER);
+                int index = parseBatchIndex(fields[0], parsers.length);
+                if (index >= 0 && parsers[index] != null) {
+                    parsers[index].finish();
+                }
+                if (index >= 0 && fields[1] != null) {
+                    try {
+                        exitCodes[index] = Integer.valueOf(fields[1]);
+                    } catch (NumberFormatException e) {
+                        // handled as a missing exit code
+                    }
+                }
+                current = -1;
+            } else if (current >= 0) {
+                parsers[current].parseLine(readline);
+            } else if (readline.trim().isEmpty() == false) {
+                DebugHelper.error(listener, "%s: line outside of any load rule, hence we skip it, " 
+                                                    + "line: %s", LOG_LSHISTORY_BATCH, readline);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+
+            for (LshistoryParser parser : parsers) {
+                if (parser != null) {
+                    parser.finish();
+                }
+            }
+        }
+
+        /**
+         * @param index the load rule index in the batch, always 0 if not in batch mode
+         * @return the entries parsed for the load rule
+         */
+        public List<SimpleClearCaseChangeLogEntry> getEntries(int index) {
+            return (parsers[index] != null) ? parsers[index].getEntries() 
+                                            : new ArrayList<SimpleClearCaseChangeLogEntry>();
+        }
+
+        /**
+         * @param index the load rule index in the batch
+         * @return the exit code printed by the end marker, null if there wasn't any
+         */
+        public Integer getExitCode(int index) {
+            return exitCodes[index];
+        }
+    }
+
+    /**
+     * Kills a process, or the process of a session, which runs for longer than its timeout.
+     */
+    static class Watchdog implements Runnable {
+        private final Proc proc;
+        private final ClearToolSession session;
+        private final ScheduledFuture<?> future;
+        private volatile boolean fired;
+
+        /**
+         * @param proc the process to kill, null if session is given
+         * @param session the session to kill, null if proc is given
+         * @param timeout in milliseconds, 0 or less means the watchdog never fires
+         */
+        public Watchdog(Proc proc, ClearToolSession session, long timeout) {
+            this.proc    = proc;
+            this.session = session;
+            this.future  = (timeout > 0) ? WATCHDOG.schedule(this, timeout, TimeUnit.MILLISECONDS) : null;
+        }
+
+        public void run() {
+            fired = true;
+
+            // killing a remote process is a call to the node, which may be as unresponsive as 
+            // the command, hence it is done elsewhere to not hold up the other watchdogs
+            Computer.threadPoolForRemoting.submit(new Runnable() {
+                public void run() {
+                    if (session != null) {
+                        session.kill();
+                        return;
+                    }
+                    try {
+                        proc.kill();
+                    } catch (IOException e) {
+                        // nothing more we can do about it
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        /**
+         * @return true if the watchdog has fired, meaning that the command was killed
+         */
+        public boolean stop() {
+            if (future != null) {
+                future.cancel(false);
+            }
+            return fired;
+        }
+    }
+
+    /**
+     * Reads lshistory output only until an event newer than the baseline date shows up, then 
+     * kills the process and ignores whatever output is still on its way.
+     */
+    class LshistoryProbeOutputStream extends LineTransformationOutputStream {
+        private final Date threshold;
+        // the entries aren't kept, we only look at them as they are parsed
+        private final LshistoryParser parser = new LshistoryParser(false);
+        private Date found;
+        private Proc proc;
+
+        /**
+         * @param threshold the baseline date, null if any event is newer
+         */
+        public LshistoryProbeOutputStream(Date threshold) {
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) throws IOException {
+            if (getFound() != null) {
+                return;
+            }
+            SimpleClearCaseChangeLogEntry entry = parser.parseLine(trimEOL(new String(b, 0, len)));
+
+            if (entry != null && (threshold == null || threshold.before(entry.getDate()))) {
+                setFound(entry.getDate());
+            }
+        }
+
+        public synchronized Date getFound() {
+            return found;
+        }
+
+        private synchronized void setFound(Date found) {
+            this.found = found;
+            kill();
+        }
+
+        /**
+         * @param proc the process writing to this stream, killed as soon as an event is found
+         */
+        public synchronized void setProc(Proc proc) {
+            this.proc = proc;
+            if (found != null) {
+                kill();
+            }
+        }
+
+        private void kill() {
+            if (proc == null) {
+                return;
+            }
+            final Proc p = proc;
+
+            // output of a remote process is delivered by a remoting thread, which cannot wait 
+            // for the kill call to the remote side, hence the process is killed from elsewhere
+            Computer.threadPoolForRemoting.submit(new Runnable() {
+                public void run() {
+                    try {
+                        p.kill();
+                    } catch (IOException e) {
+                        DebugHelper.error(listener, "%s: failed to kill lshistory: %s", 
+                                                                         LOG_PROBE, e.getMessage());
+                    } catch (InterruptedException e) {
+                        DebugHelper.error(listener, "%s: interrupted while killing lshistory", 
+                                                                                         LOG_PROBE);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds ChangeLog entries from lshistory output, one line at a time. As the comment of an 
+     * entry could span several lines, lines are collected until the record end line, see 
+     * SimpleClearCaseChangeLogEntry.LSHISTORY_FORMATTING, and then the record is tokenized in a 
+     * single pass.
+     */
+    class LshistoryParser {
+        private final List<SimpleClearCaseChangeLogEntry> entries = new ArrayList<SimpleClearCaseChangeLogEntry>();
+        private final boolean collect;
+        private final StringBuilder record = new StringBuilder();
+        // the positions of the field separators of the record being tokenized
+        private final int[] separators = new int[SimpleClearCaseChangeLogEntry.LSHISTORY_FIELDS - 1];
+        // ClearCase returns with a specific formatting on date, see TimestampCodec.FORMAT
+        private final TimestampCodec timestampCodec = TimestampCodec.getDefault();
+
+        public LshistoryParser() {
+            this(true);
+        }
+
+        /**
+         * @param collect if false the parsed entries are only returned by parseLine, not kept
+         */
+        public LshistoryParser(boolean collect) {
+            this.collect = collect;
+        }
+
+        /**
+         * @param readline a line of lshistory output, without line separator
+         * @return the entry of the record which readline completed, null if it didn't complete
+         *         any record or if the record couldn't be parsed
+         */
+        public SimpleClearCaseChangeLogEntry parseLine(String readline) {
+            if (record.length() == 0 && isRecordStart(readline) == false) {
+                // output between records, such as an error cleartool printed on stderr, which 
+                // would otherwise prefix the date of the next record
+                if (readline.trim().isEmpty() == false) {
+                    DebugHelper.error(listener, "%s: Output between records, hence we skip it, " 
+                                                         + "output: %s", LOG_LSHISTORY_PRIVATE, readline);
+                }
+                return null;
+            }
+
+            if (readline.equals(SimpleClearCaseChangeLogEntry.LSHISTORY_RECORD_END) == false) {
+                if (record.length() > 0) {
+                    record.append('\n');
+                }
+                record.append(readline);
+                return null;
+            }
+
+            SimpleClearCaseChangeLogEntry entry = parseRecord(record);
+
+            if (entry != null && collect == true) {
+                entries.add(entry);
+            }
+            record.setLength(0);
+            return entry;
+        }
+
+        /**
+         * Logs the output following the last complete record, if there is any.
+         */
+        public void finish() {
+            if (record.toString().trim().isEmpty() == false) {
+                DebugHelper.error(listener, "%s: Output after the last record, hence we skip it, " 
+                                                         + "output: %s", LOG_LSHISTORY_PRIVATE, record);
+            }
+            record.setLength(0);
+        }
+
+        public List<SimpleClearCaseChangeLogEntry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return true if a record has been started but not ended yet
+         */
+        public boolean isInRecord() {
+            return record.length() > 0;
+        }
+
+        /**
+         * @param readline
+         * @return true if readline starts with a date followed by a field separator, as the first 
+         *         line of a record does
+         */
+        private boolean isRecordStart(String readline) {
+            int end = readline.indexOf(SimpleClearCaseChangeLogEntry.LSHISTORY_FIELD_SEPARATOR);
+            return end > 0 && timestampCodec.parse(readline, 0, end) != TimestampCodec.INVALID;
+        }
+
+        /**
+         * @param rec a record of the fields in LSHISTORY_FORMATTING separated by 
+         *            LSHISTORY_FIELD_SEPARATOR, where the comment, which is the last field, may 
+         *            contain any character
+         * @return the entry, null if the record couldn't be parsed or is filtered away
+         */
+        private SimpleClearCaseChangeLogEntry parseRecord(CharSequence rec) {
+            int found = 0;
+            int length = rec.length();
+
+            // locates the separators of all fields but the comment
+            for (int i = 0; i < length && found < separators.length; i++) {
+                if (rec.charAt(i) == SimpleClearCaseChangeLogEntry.LSHISTORY_FIELD_SEPARATOR) {
+                    separators[found++] = i;
+                }
+            }
+
+            if (found < separators.length) {
+                logUnparsable(rec);
+                return null;
+            }
+            long timestamp = timestampCodec.parse(rec, 0, separators[0]);
+
+            if (timestamp == TimestampCodec.INVALID) {
+                // if we cannot parse the date then the whole entry will be irrelevant
+                logUnparsable(rec);
+                return null;
+            }
+            String readline = rec.toString();
+
+            String operation = readline.substring(separators[4] + 1, separators[5]);
+
+            // we filter away events that consist of creation and deletion of branches
+            // if filter is true
+            if (filter == true && (operation.equals(FILTER_MKBRANCH) || operation.equals(FILTER_RMBRANCH))) {
+                return null;
+            }
+
+            String user             = readline.substring(separators[0] + 1, separators[1]);
+            String path             = fromViewPath(readline.substring(separators[1] + 1, separators[2]));
+            String version          = readline.substring(separators[2] + 1, separators[3]);
+            String eventDescription = readline.substring(separators[3] + 1, separators[4]);
+            String eventId          = readline.substring(separators[5] + 1, separators[6]);
+            String comment          = readline.substring(separators[6] + 1);
+
+            // the constructor of ChangeLogEntry follows LSHISTORY_FORMATTING parameter order
+            SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(new Date(timestamp), user, 
+                                                  path, version, eventDescription, operation, comment);
+            entry.setEventId((eventId.length() > 0) ? eventId : null);
+            addElementPaths(entry, comment);
+            return entry;
+        }
+
+        /**
+         * The comment of a directory version lists the elements added to the directory, one per
+         * line, as: Added file element "name". These are added as paths of the entry.
+         */
+        private void addElementPaths(SimpleClearCaseChangeLogEntry entry, String comment) {
+            int start = 0;
+
+            while (start < comment.length()) {
+                int end = comment.indexOf('\n', start);
+                if (end < 0) {
+                    end = comment.length();
+                }
+
+                if (comment.startsWith(ADDED_FILE_ELEMENT, start) 
+                                                || comment.startsWith(ADDED_DIRECTORY_ELEMENT, start)) {
+                    // with the formatting we have the ELEMENT row wraps the filepath with quote.
+                    int startIndex = comment.indexOf(ADDED_ELEMENT_QUOTATION, start) + 1;
+                    int endIndex   = comment.indexOf(ADDED_ELEMENT_QUOTATION, startIndex);
+
+                    if (startIndex > 0 && endIndex > 0 && endIndex < end) {
+                        entry.addPath(comment.substring(startIndex, endIndex));
+                    }
+                }
+                start = end + 1;
+            }
+        }
+
+        private void logUnparsable(CharSequence rec) {
+            DebugHelper.error(listener, "%s: Wasn't able to parse record, hence we skip it, " 
+                                                                + "record: %s", LOG_LSHISTORY_PRIVATE, rec);
         }
-        
-        // the constructor of ChangeLogEntry follows LSHISTORY_FORMATTING
-        // parameter order
-        return new SimpleClearCaseChangeLogEntry(entryDate, user, path, version, eventDescription, 
-                                                                                      operation, comment);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,265 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.util.ArgumentListBuilder;
+
+/**
+ * A long-lived interactive cleartool process. Commands are written to the stdin of the process
+ * and as cleartool is started with -status it prints the status of each command after its output,
+ * which is how we know where the output of one command ends.
+ * 
+ * A session is only used by one thread at a time, see ClearToolSessionPool.
+ */
+public class ClearToolSession {
+    private static final String CLEARTOOL    = "cleartool";
+    private static final String SETVIEW      = "setview";
+    private static final String PARAM_EXEC   = "-exec";
+    private static final String PARAM_STATUS = "-status";
+    private static final String QUIT         = "quit";
+    private static final String PWD          = "pwd";
+    private static final String PROMPT       = "cleartool> ";
+    private static final String NEWLINE      = "\n";
+
+    private static final Logger LOGGER = Logger.getLogger(ClearToolSession.class.getName());
+
+    // printed by cleartool -status after every command
+    private static final Pattern STATUS_PATTERN = Pattern.compile("Command (\\d+) returned status (\\d+)");
+
+    private final String viewname;
+    private volatile Proc proc;
+    private OutputStream stdin;
+    private BufferedReader stdout;
+    private volatile boolean alive;
+    private volatile boolean killed;
+    private long lastUsed;
+    // the number of the status line of the next command, learned from the first one, 0 before
+    private int nextCommand;
+
+    /**
+     * @param viewname the view which commands are executed in, null if no view is needed
+     */
+    public ClearToolSession(String viewname) {
+        this.viewname = viewname;
+    }
+
+    /**
+     * @param launcher launches the cleartool process on the node
+     * @throws IOException if cleartool couldn't be started or doesn't respond
+     * @throws InterruptedException
+     */
+    public void start(Launcher launcher) throws IOException, InterruptedException {
+        ArgumentListBuilder cmd = new ArgumentListBuilder();
+
+        if (viewname != null) {
+            // the interactive cleartool inherits stdin and stdout from the shell spawned by setview
+            cmd.add(CLEARTOOL, SETVIEW, PARAM_EXEC);
+            cmd.add(CLEARTOOL + " " + PARAM_STATUS);
+            cmd.add(viewname);
+        } else {
+            cmd.add(CLEARTOOL, PARAM_STATUS);
+        }
+
+        // stderr is read apart from stdout, as an error printed while a command runs would 
+        // otherwise end up in the output of the command
+        proc = launcher.launch().cmds(cmd).readStdout().readStderr().writeStdin().start();
+        attach(proc.getStdin(), proc.getStdout());
+        new StderrReader(proc.getStderr(), viewname).start();
+
+        if (killed == true) {
+            // killed while it was being launched
+            kill();
+        }
+
+        // making sure the session actually came up, as setview fails if the view doesn't exist
+        if (isHealthy() == false) {
+            close();
+            throw new IOException("ClearToolSession: cleartool didn't respond after start, view: " + viewname);
+        }
+    }
+
+    /**
+     * @param stdin where the commands are written to
+     * @param stdout where their output and status lines are read from
+     */
+    void attach(OutputStream stdin, InputStream stdout) {
+        this.stdin  = stdin;
+        this.stdout = new BufferedReader(new InputStreamReader(stdout));
+        this.alive  = true;
+    }
+
+    /**
+     * @param cmd the cleartool sub command, without any cleartool prefix
+     * @param out output from executed command is pushed to this stream, can be null
+     * @return the status cleartool returned for the command
+     * @throws IOException if the session died while executing the command
+     */
+    public int execute(ArgumentListBuilder cmd, OutputStream out) throws IOException {
+        if (alive == false) {
+            throw new IOException("ClearToolSession: session isn't alive, view: " + viewname);
+        }
+
+        try {
+            stdin.write((cmd.toStringWithQuote() + NEWLINE).getBytes());
+            stdin.flush();
+
+            String readline = stdout.readLine();
+            while (readline != null) {
+                // the prompt isn't followed by a newline, hence it prefixes the first line of output
+                while (readline.startsWith(PROMPT)) {
+                    readline = readline.substring(PROMPT.length());
+                }
+
+                // only the status line of this command ends its output, a line of the output 
+                // which looks like a status line of another command doesn't
+                Matcher m = STATUS_PATTERN.matcher(readline);
+                if (m.matches() && (nextCommand == 0 || Integer.parseInt(m.group(1)) == nextCommand)) {
+                    nextCommand = Integer.parseInt(m.group(1)) + 1;
+                    lastUsed = System.currentTimeMillis();
+                    return Integer.parseInt(m.group(2));
+                }
+
+                if (out != null) {
+                    out.write((readline + NEWLINE).getBytes());
+                }
+                readline = stdout.readLine();
+            }
+        } catch (IOException e) {
+            alive = false;
+            throw e;
+        }
+        // end of stream, the cleartool process has terminated
+        alive = false;
+        throw new IOException("ClearToolSession: cleartool terminated while executing: " 
+                                                                             + cmd.toStringWithQuote());
+    }
+
+    /**
+     * @return true if the cleartool process still responds to commands
+     */
+    public boolean isHealthy() {
+        try {
+            return alive == true && execute(new ArgumentListBuilder(PWD), null) == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    public String getViewname() {
+        return viewname;
+    }
+
+    /**
+     * @return the time in milliseconds when the session last completed a command
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Kills the cleartool process without asking it to quit, which unblocks a thread waiting
+     * for the output of a hung command.
+     */
+    public void kill() {
+        alive = false;
+        killed = true;
+
+        if (proc == null) {
+            // not launched yet, start kills it once it is
+            return;
+        }
+        try {
+            proc.kill();
+        } catch (IOException e) {
+            // nothing more we can do about it
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Logs what the cleartool process prints on stderr, until the process ends.
+     */
+    private static class StderrReader extends Thread {
+        private final BufferedReader stderr;
+        private final String viewname;
+
+        public StderrReader(InputStream stderr, String viewname) {
+            super("ClearToolSession stderr reader, view: " + viewname);
+            this.stderr   = new BufferedReader(new InputStreamReader(stderr));
+            this.viewname = viewname;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                String readline = stderr.readLine();
+                while (readline != null) {
+                    LOGGER.warning("ClearToolSession: cleartool error, view: " + viewname + ": " + readline);
+                    readline = stderr.readLine();
+                }
+            } catch (IOException e) {
+                // the process has ended
+            }
+        }
+    }
+
+    /**
+     * Ends the cleartool process, first by asking it to quit and then by killing it.
+     */
+    public void close() {
+        alive = false;
+        try {
+            stdin.write((QUIT + NEWLINE).getBytes());
+            stdin.close();
+        } catch (IOException e) {
+            // the process is killed below anyhow
+        }
+
+        try {
+            proc.kill();
+        } catch (IOException e) {
+            // nothing more we can do about it
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
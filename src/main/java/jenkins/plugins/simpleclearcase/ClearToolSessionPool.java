@@ -0,0 +1,328 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import jenkins.plugins.simpleclearcase.util.PropUtils;
+
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.PeriodicWork;
+
+/**
+ * Keeps warm ClearToolSessions for each node and view, such that commands don't have to pay 
+ * for starting cleartool and attaching the view each time. Sessions are checked out by one 
+ * thread at a time and checked in again when the command is done. Sessions which have died are 
+ * discarded and replaced by new ones, sessions which have been idle for too long are closed.
+ */
+public class ClearToolSessionPool {
+    // sessions which have been idle for longer than this are health checked before reuse
+    private static final long HEALTH_CHECK_AFTER = TimeUnit.MINUTES.toMillis(1);
+    // describes the command of a session which timed out before it was ready
+    private static final String START_SESSION = "cleartool -status";
+
+    private static final ClearToolSessionPool INSTANCE = new ClearToolSessionPool();
+
+    private final Map<Key, LinkedList<ClearToolSession>> idle = new HashMap<Key, LinkedList<ClearToolSession>>();
+    // the number of open sessions, idle or checked out, for each key
+    private final Map<Key, Integer> open = new HashMap<Key, Integer>();
+    private final Map<ClearToolSession, Key> owners = new IdentityHashMap<ClearToolSession, Key>();
+    // the generation each open session was started in, sessions of earlier generations are 
+    // closed when they are checked in, see invalidate
+    private final Map<ClearToolSession, Integer> generations = new IdentityHashMap<ClearToolSession, Integer>();
+    private int generation;
+
+    public static ClearToolSessionPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param launcher the launcher for the node where the session should run
+     * @param viewname the view the session should be started in, null if no view is needed
+     * @param timeout for how many milliseconds starting or health checking a session may take, 
+     *                0 or less means no limit. A session exceeding it is killed.
+     * @return a healthy session, or null if the pool is exhausted for the node and view or if 
+     *         a new session couldn't be started. The caller should then execute without a session.
+     * @throws ClearToolTimeoutException if no session was ready within timeout
+     * @throws InterruptedException
+     */
+    public ClearToolSession checkout(Launcher launcher, String viewname, long timeout) 
+                                                 throws ClearToolTimeoutException, InterruptedException {
+        Key key = new Key(launcher.getChannel(), viewname);
+        long started = System.currentTimeMillis();
+
+        while (true) {
+            ClearToolSession session = null;
+
+            synchronized (this) {
+                LinkedList<ClearToolSession> sessions = idle.get(key);
+
+                if (sessions != null && sessions.isEmpty() == false) {
+                    session = sessions.removeFirst();
+                } else if (getOpen(key) < PropUtils.getMaxSessionsPerView()) {
+                    open.put(key, getOpen(key) + 1);
+                } else {
+                    return null;
+                }
+            }
+
+            if (session == null) {
+                return startSession(launcher, key, started, timeout);
+            }
+
+            long idleTime = System.currentTimeMillis() - session.getLastUsed();
+            if (session.isAlive() && (idleTime < HEALTH_CHECK_AFTER || isHealthy(session, key, started, timeout))) {
+                return session;
+            }
+            // the session has crashed or hung, we discard it and try the next one
+            discard(session);
+        }
+    }
+
+    /**
+     * @param session a session which was checked out from this pool
+     */
+    public void checkin(ClearToolSession session) {
+        synchronized (this) {
+            // sessions started before the pool was invalidated are closed instead
+            if (session.isAlive() == true && isCurrent(session) == true) {
+                Key key = owners.get(session);
+                LinkedList<ClearToolSession> sessions = idle.get(key);
+
+                if (sessions == null) {
+                    sessions = new LinkedList<ClearToolSession>();
+                    idle.put(key, sessions);
+                }
+                // the most recently used sessions are reused first, letting the others become idle
+                sessions.addFirst(session);
+                return;
+            }
+        }
+        discard(session);
+    }
+
+    /**
+     * Closes sessions which have died or been idle for longer than the idle timeout.
+     */
+    public void evictIdle() {
+        long timeout = TimeUnit.MINUTES.toMillis(PropUtils.getSessionIdleTimeout());
+        LinkedList<ClearToolSession> evicted = new LinkedList<ClearToolSession>();
+
+        synchronized (this) {
+            for (LinkedList<ClearToolSession> sessions : idle.values()) {
+                Iterator<ClearToolSession> it = sessions.iterator();
+
+                while (it.hasNext()) {
+                    ClearToolSession session = it.next();
+
+                    if (session.isAlive() == false 
+                            || System.currentTimeMillis() - session.getLastUsed() > timeout) {
+                        it.remove();
+                        evicted.add(session);
+                    }
+                }
+            }
+        }
+
+        for (ClearToolSession session : evicted) {
+            discard(session);
+        }
+    }
+
+    /**
+     * Closes all idle sessions, checked out sessions are closed when they are checked in.
+     */
+    public void invalidate() {
+        LinkedList<ClearToolSession> evicted = new LinkedList<ClearToolSession>();
+
+        synchronized (this) {
+            generation++;
+
+            for (LinkedList<ClearToolSession> sessions : idle.values()) {
+                evicted.addAll(sessions);
+                sessions.clear();
+            }
+        }
+
+        for (ClearToolSession session : evicted) {
+            discard(session);
+        }
+    }
+
+    private ClearToolSession startSession(Launcher launcher, Key key, long started, long timeout) 
+                                                 throws ClearToolTimeoutException, InterruptedException {
+        ClearToolSession session = new ClearToolSession(key.viewname);
+        ClearTool.Watchdog watchdog = null;
+        boolean timedOut = false;
+
+        try {
+            watchdog = new ClearTool.Watchdog(null, session, getRemaining(key, started, timeout));
+            session.start(launcher);
+        } catch (IOException e) {
+            synchronized (this) {
+                open.put(key, getOpen(key) - 1);
+            }
+
+            if (e instanceof ClearToolTimeoutException || watchdog.stop() == true) {
+                throw timeoutException(key, started, timeout);
+            }
+            return null;
+        } finally {
+            if (watchdog != null) {
+                timedOut = watchdog.stop();
+            }
+        }
+
+        synchronized (this) {
+            owners.put(session, key);
+            generations.put(session, generation);
+        }
+
+        if (timedOut == true) {
+            // it came up just as the watchdog fired
+            discard(session);
+            throw timeoutException(key, started, timeout);
+        }
+        return session;
+    }
+
+    /**
+     * @return true if session responds within what is left of timeout, a session which doesn't 
+     *         is killed
+     * @throws ClearToolTimeoutException if timeout has passed already, session is checked in again
+     */
+    private boolean isHealthy(ClearToolSession session, Key key, long started, long timeout) 
+                                                                     throws ClearToolTimeoutException {
+        ClearTool.Watchdog watchdog;
+        try {
+            watchdog = new ClearTool.Watchdog(null, session, getRemaining(key, started, timeout));
+        } catch (ClearToolTimeoutException e) {
+            checkin(session);
+            throw e;
+        }
+
+        try {
+            return session.isHealthy();
+        } finally {
+            watchdog.stop();
+        }
+    }
+
+    /**
+     * @return the milliseconds left of timeout since started, 0 if there is no timeout
+     * @throws ClearToolTimeoutException if the timeout has passed
+     */
+    private long getRemaining(Key key, long started, long timeout) throws ClearToolTimeoutException {
+        if (timeout <= 0) {
+            return 0;
+        }
+        long remaining = timeout - (System.currentTimeMillis() - started);
+
+        if (remaining <= 0) {
+            throw timeoutException(key, started, timeout);
+        }
+        return remaining;
+    }
+
+    private ClearToolTimeoutException timeoutException(Key key, long started, long timeout) {
+        return new ClearToolTimeoutException(START_SESSION, key.viewname, timeout, 
+                                                       System.currentTimeMillis() - started, false);
+    }
+
+    private void discard(ClearToolSession session) {
+        session.close();
+
+        synchronized (this) {
+            Key key = owners.remove(session);
+            generations.remove(session);
+
+            if (key != null) {
+                open.put(key, getOpen(key) - 1);
+            }
+        }
+    }
+
+    private synchronized boolean isCurrent(ClearToolSession session) {
+        Integer ret = generations.get(session);
+        return ret != null && ret == generation;
+    }
+
+    private synchronized int getOpen(Key key) {
+        Integer ret = open.get(key);
+        return (ret != null) ? ret : 0;
+    }
+
+    /**
+     * Sessions are kept per node, identified by the channel of the launcher, and view.
+     */
+    private static class Key {
+        private final Object channel;
+        private final String viewname;
+
+        public Key(Object channel, String viewname) {
+            this.channel  = channel;
+            this.viewname = viewname;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if ((o instanceof Key) == false) {
+                return false;
+            }
+            Key k = (Key) o;
+            return channel == k.channel 
+                    && (viewname == null ? k.viewname == null : viewname.equals(k.viewname));
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(channel) * 31 + (viewname == null ? 0 : viewname.hashCode());
+        }
+    }
+
+    /**
+     * Closes idle sessions periodically, such that no cleartool processes are left behind when 
+     * polling stops.
+     */
+    @Extension
+    public static class IdleSessionReaper extends PeriodicWork {
+        @Override
+        public long getRecurrencePeriod() {
+            return MIN;
+        }
+
+        @Override
+        protected void doRun() {
+            get().evictIdle();
+        }
+    }
+}
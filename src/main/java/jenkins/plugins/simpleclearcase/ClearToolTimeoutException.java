@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a cleartool command is killed for running longer than its timeout, or when the 
+ * time budget of the whole operation, such as a poll, was used up before the command could run.
+ */
+public class ClearToolTimeoutException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String command;
+    private final String viewname;
+    private final long timeout;
+    private final long elapsed;
+    private final boolean budgetExceeded;
+
+    /**
+     * @param command the command line which timed out
+     * @param viewname the view of the ClearTool executing the command
+     * @param timeout the timeout which applied to the command, in milliseconds
+     * @param elapsed for how long the command ran before it was killed, in milliseconds
+     * @param budgetExceeded true if the timeout was given by the time left of the operations 
+     *                       budget rather than by the timeout of each command
+     */
+    public ClearToolTimeoutException(String command, String viewname, long timeout, long elapsed, 
+                                                                              boolean budgetExceeded) {
+        super(String.format("ClearTool: %s exceeded, elapsed: %d ms, timeout: %d ms, view: %s. " 
+                            + "Tried to execute: %s", budgetExceeded ? "time budget" : "command timeout", 
+                                                            elapsed, timeout, viewname, command));
+        this.command = command;
+        this.viewname = viewname;
+        this.timeout = timeout;
+        this.elapsed = elapsed;
+        this.budgetExceeded = budgetExceeded;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getViewname() {
+        return viewname;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public boolean isBudgetExceeded() {
+        return budgetExceeded;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import jenkins.plugins.simpleclearcase.util.PropUtils;
+
+/**
+ * Remembers the outcome of the cleartool probes behind the form validation, such as if a view,
+ * a path or a branch exists, so that loading a job configuration or typing in its fields doesn't
+ * start the same cleartool processes over and over again. Results expire after a while, the 
+ * least recently used results are dropped when the cache is full.
+ */
+public class ClearToolValidationCache {
+    private static final String KEY_SEPARATOR = "\u0000";
+
+    private static final ClearToolValidationCache INSTANCE = 
+                new ClearToolValidationCache(PropUtils.getValidationCacheMaxEntries(), 
+                                TimeUnit.SECONDS.toMillis(PropUtils.getValidationCacheTimeout()));
+
+    private final long timeout;
+    private final Map<String, Result> results;
+
+    public static ClearToolValidationCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param maxEntries the number of results kept at most
+     * @param timeout for how many milliseconds a result is valid
+     */
+    ClearToolValidationCache(final int maxEntries, long timeout) {
+        this.timeout = timeout;
+        // access ordered, hence the eldest entry is the least recently used one
+        this.results = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param parts what the result depends on, such as the kind of probe, view, path and branch
+     * @return the key for the result
+     */
+    public static String key(String... parts) {
+        StringBuilder ret = new StringBuilder();
+
+        for (String s : parts) {
+            ret.append(s).append(KEY_SEPARATOR);
+        }
+        return ret.toString();
+    }
+
+    /**
+     * @param key
+     * @return the result stored for key, null if there isn't any or it has expired
+     */
+    public synchronized Boolean get(String key) {
+        Result result = results.get(key);
+
+        if (result == null) {
+            return null;
+        }
+
+        if (System.currentTimeMillis() - result.created >= timeout) {
+            results.remove(key);
+            return null;
+        }
+        return result.value;
+    }
+
+    public synchronized void put(String key, boolean value) {
+        results.put(key, new Result(value, System.currentTimeMillis()));
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Forgets all results, for instance when a view or branch has just been created.
+     */
+    public synchronized void invalidate() {
+        results.clear();
+    }
+
+    private static class Result {
+        private final boolean value;
+        private final long created;
+
+        public Result(boolean value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
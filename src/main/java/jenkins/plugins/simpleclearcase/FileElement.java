@@ -24,15 +24,18 @@
 
 package jenkins.plugins.simpleclearcase;
 
+import jenkins.plugins.simpleclearcase.util.PathNode;
+
 /**
  * @author Sam Tavakoli
  *
  * This class represents a file element inside the repository. It's a simple container 
+ * where the path is kept as a PathNode, sharing its prefix with the paths of other elements
  */
 public class FileElement {
 	public static final String INIT_VERSION = "0"; 
 	
-	private String filePath;
+	private PathNode path;
 	private String version;
 	
 	public FileElement() {
@@ -49,11 +52,15 @@ public class FileElement {
 	}
 	
 	public String getFilePath() {
-		return filePath;
+		return (path != null) ? path.toString() : null;
 	}
 	
 	public void setFilePath(String path) {
-		this.filePath = path;
+		this.path = PathNode.get(path);
+	}
+	
+	public PathNode getPath() {
+		return path;
 	}
 	
 	public String getVersion() {
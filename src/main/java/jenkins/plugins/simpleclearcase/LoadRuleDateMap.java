@@ -28,77 +28,308 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import jenkins.plugins.simpleclearcase.util.DateUtil;
 
+/**
+ * Maps load rules to the date of their latest commit, the date of a load rule may be null.
+ * 
+ * The map is kept in two columns, the interned load rules and their dates as milliseconds, where 
+ * the load rule at index i has the date at index i. An open addressing table of indexes gives 
+ * constant time lookup. Copies share the columns with the original until either of them is 
+ * written to, and as long as two maps share the load rule column they are compared and merged 
+ * index by index without any lookups.
+ */
 public class LoadRuleDateMap {
 	private static final String OUTPUT_FORMAT = "[%s, %s]";
-	//due to synchronization problem with Calendar we need to have an private instance to DateUtil
-	private DateUtil dateUtil;
+	// stored for a load rule without date, as it's the smallest long it's before any date
+	private static final long NO_DATE = Long.MIN_VALUE;
+	private static final int INITIAL_CAPACITY = 8;
+
+	private String[] loadRules;
+	private long[] dates;
+	private int size;
+
+	// open addressing table holding index + 1 of the load rules, 0 is a free slot. It's 
+	// derived from loadRules, hence it isn't persisted but rebuilt when needed
+	private transient int[] slots;
+	// if the columns are shared with another map, and have to be copied before written to
+	private transient boolean sharedLoadRules;
+	private transient boolean sharedDates;
+
+	// the representation of earlier versions, only set while reading such a map, see readResolve
 	private Map<String, Date> map;
 	
 	public LoadRuleDateMap() {
-		map = new HashMap<String, Date>();
-		dateUtil = new DateUtil();
+		loadRules = new String[INITIAL_CAPACITY];
+		dates = new long[INITIAL_CAPACITY];
 	}
 	
 	public Date getBuiltTime(String loadRule) {
-		return map.get(loadRule);
+		int i = indexOf(loadRule);
+		return (i >= 0) ? toDate(dates[i]) : null;
 	}
 	
 	public void setBuildTime(String loadRule, Date date) {
-		map.put(loadRule, date);
+		int i = indexOf(loadRule);
+
+		if (i < 0) {
+			i = add(loadRule);
+		}
+		writeDates()[i] = (date != null) ? date.getTime() : NO_DATE;
 	}
 	
 	public Collection<Date> getDates() {
-		return map.values();
+		List<Date> ret = new ArrayList<Date>(size);
+
+		for (int i = 0; i < size; i++) {
+			ret.add(toDate(dates[i]));
+		}
+		return ret;
 	}
 	
 	public boolean isEmpty() {
-	    return map.isEmpty();
+	    return size == 0;
+	}
+	
+	public int size() {
+	    return size;
+	}
+	
+	/**
+	 * @param loadRule
+	 * @return true if there is a date, or null, stored for the load rule
+	 */
+	public boolean containsLoadRule(String loadRule) {
+	    return indexOf(loadRule) >= 0;
+	}
+	
+	/**
+	 * @return a new LoadRuleDateMap with the same load rules and dates, the columns are shared 
+	 *         until either map is written to
+	 */
+	public LoadRuleDateMap copy() {
+	    LoadRuleDateMap ret = new LoadRuleDateMap(loadRules, dates, size, slots);
+	    sharedLoadRules = true;
+	    sharedDates = true;
+	    return ret;
+	}
+	
+	/**
+	 * @param other
+	 * @return a new LoadRuleDateMap holding the load rules of both maps, where each load rule has 
+	 *         the latest of its dates in the maps
+	 */
+	public LoadRuleDateMap merge(LoadRuleDateMap other) {
+	    LoadRuleDateMap ret = copy();
+
+	    if (other.loadRules == loadRules) {
+	        // the same load rules at the same indexes
+	        long[] retDates = ret.writeDates();
+	        long[] otherDates = other.dates;
+	        int n = Math.min(size, other.size);
+
+	        for (int i = 0; i < n; i++) {
+	            retDates[i] = Math.max(retDates[i], otherDates[i]);
+	        }
+	        return ret;
+	    }
+
+	    for (int j = 0; j < other.size; j++) {
+	        int i = ret.indexOf(other.loadRules[j]);
+
+	        if (i < 0) {
+	            i = ret.add(other.loadRules[j]);
+	            ret.writeDates()[i] = other.dates[j];
+	        } else if (ret.dates[i] < other.dates[j]) {
+	            ret.writeDates()[i] = other.dates[j];
+	        }
+	    }
+	    return ret;
 	}
 	
 	/**
 	 * @param compare the comparison LoadRuleDateMap
-	 * @return true if this LoadRuleDateMap has a date before compare date, for a specific load rule  
+	 * @return true if this LoadRuleDateMap has a date before compare date, for a specific load rule. 
+	 *         A load rule without date is before any date of compare.
 	 */
 	public boolean isBefore(LoadRuleDateMap compare) {
-	    for (Map.Entry<String, Date> entry : map.entrySet()) {
-	        
-			//fetch the date for the specific load rule
-			Date compareDate = compare.getBuiltTime(entry.getKey());
-			
-			// if our date is null, but compare isn't then we return true
-			// since it would indicate that remote has something of value, compared
-			// to nothing, which is in our set.
-			if (entry.getValue() == null && compareDate != null) {
-			    return true;
+	    if (compare.loadRules == loadRules) {
+	        // the same load rules at the same indexes
+	        long[] compareDates = compare.dates;
+	        int n = Math.min(size, compare.size);
+
+	        for (int i = 0; i < n; i++) {
+	            if (compareDates[i] != NO_DATE && dates[i] < compareDates[i]) {
+	                return true;
+	            }
+	        }
+	        return false;
+	    }
+
+	    for (int i = 0; i < size; i++) {
+	        //fetch the date for the specific load rule
+	        int j = compare.indexOf(loadRules[i]);
+
+	        // compare the entries date for the load rule against the comparisons date
+	        if (j >= 0 && compare.dates[j] != NO_DATE && dates[i] < compare.dates[j]) {
+	            return true;
+	        }
+	    }
+	    return false;
+	}
+
+	private LoadRuleDateMap(String[] loadRules, long[] dates, int size, int[] slots) {
+		this.loadRules = loadRules;
+		this.dates = dates;
+		this.size = size;
+		this.slots = slots;
+		this.sharedLoadRules = true;
+		this.sharedDates = true;
+	}
+
+	private static Date toDate(long date) {
+		return (date != NO_DATE) ? new Date(date) : null;
+	}
+
+	/**
+	 * @return the index of the load rule, -1 if there isn't such load rule
+	 */
+	private int indexOf(String loadRule) {
+		if (size == 0) {
+			return -1;
+		}
+		int[] table = getSlots();
+		int mask = table.length - 1;
+
+		for (int i = hash(loadRule) & mask; ; i = (i + 1) & mask) {
+			int slot = table[i];
+
+			if (slot == 0) {
+				return -1;
 			}
-			
-			// compare the entries date for the load rule against the comparisons date
-			if (compareDate != null && entry.getValue().before(compareDate)) {
-				return true;
+			if (loadRules[slot - 1].equals(loadRule)) {
+				return slot - 1;
 			}
 		}
-		return false;
+	}
+
+	/**
+	 * @return the index of the newly added load rule, which has no date
+	 */
+	private int add(String loadRule) {
+		if (sharedLoadRules == true || size == loadRules.length) {
+			int capacity = (size == loadRules.length) ? Math.max(INITIAL_CAPACITY, size * 2) : loadRules.length;
+
+			loadRules = Arrays.copyOf(loadRules, capacity);
+			dates = Arrays.copyOf(dates, capacity);
+			// the table is shared as well, or has to grow
+			slots = null;
+			sharedLoadRules = false;
+			sharedDates = false;
+		}
+		// interned as there are as many maps as there are builds, all having the same load rules
+		loadRules[size] = loadRule.intern();
+		writeDates()[size] = NO_DATE;
+		size++;
+
+		if (slots != null) {
+			insertSlot(slots, size - 1);
+		}
+		return size - 1;
+	}
+
+	/**
+	 * @return the dates column, copied first if it's shared with another map
+	 */
+	private long[] writeDates() {
+		if (sharedDates == true) {
+			dates = Arrays.copyOf(dates, loadRules.length);
+			sharedDates = false;
+		}
+		return dates;
+	}
+
+	private int[] getSlots() {
+		if (slots == null || slots.length < loadRules.length * 2) {
+			// at most half full, such that the probe sequences stay short
+			int capacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, loadRules.length) * 2) * 2;
+			int[] table = new int[capacity];
+
+			for (int i = 0; i < size; i++) {
+				insertSlot(table, i);
+			}
+			slots = table;
+		}
+		return slots;
+	}
+
+	private void insertSlot(int[] table, int index) {
+		int mask = table.length - 1;
+		int i = hash(loadRules[index]) & mask;
+
+		while (table[i] != 0) {
+			i = (i + 1) & mask;
+		}
+		table[i] = index + 1;
+	}
+
+	private static int hash(String s) {
+		int h = s.hashCode();
+		// spreads the higher bits, as only the lower bits are used by the table
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Converts a map persisted by an earlier version, which only had the map field. Also 
+	 * restores the transient state, as that isn't persisted.
+	 */
+	private Object readResolve() {
+		if (loadRules == null) {
+			loadRules = new String[INITIAL_CAPACITY];
+			dates = new long[INITIAL_CAPACITY];
+			size = 0;
+		}
+
+		for (int i = 0; i < size; i++) {
+			loadRules[i] = loadRules[i].intern();
+		}
+
+		if (map != null) {
+			for (Map.Entry<String, Date> entry : map.entrySet()) {
+				setBuildTime(entry.getKey(), entry.getValue());
+			}
+			map = null;
+		}
+		return this;
+	}
+
+	/**
+	 * @return a map without any spare capacity in its columns, which is what gets persisted
+	 */
+	private Object writeReplace() {
+		if (loadRules.length == size) {
+			return this;
+		}
+		return new LoadRuleDateMap(Arrays.copyOf(loadRules, size), Arrays.copyOf(dates, size), size, null);
 	}
 
 	private List<String> getAsList() {
 		List<String> ret = new ArrayList<String>();
+		DateUtil dateUtil = new DateUtil();
 
-		for (Map.Entry<String, Date> entry : map.entrySet()) {
+		for (int i = 0; i < size; i++) {
 			//we create a string with format
-			ret.add(String.format(OUTPUT_FORMAT, entry.getKey(),  
-					         (entry.getValue() != null) ? dateUtil.formatDate(entry.getValue()) : null));
+			ret.add(String.format(OUTPUT_FORMAT, loadRules[i],  
+					         (dates[i] != NO_DATE) ? dateUtil.formatDate(toDate(dates[i])) : null));
 		}
 		return ret;
 	}
 
 	public String toString() {
-	    if (map.isEmpty()) { return "LoadRuleDateMap is empty"; }
+	    if (size == 0) { return "LoadRuleDateMap is empty"; }
 	    
 		return Arrays.toString(getAsList().toArray());
 	}
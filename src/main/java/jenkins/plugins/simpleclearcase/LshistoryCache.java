@@ -0,0 +1,267 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import jenkins.plugins.simpleclearcase.util.PropUtils;
+
+/**
+ * Shares the lshistory probes of a load rule between the jobs polling the same view, branch and 
+ * load rule, so that polling many jobs of the same branch costs about one lshistory instead of 
+ * one for each job. A probe looks for an event newer than a threshold since a date, see 
+ * ClearTool.probeLatestCommitDates, and its outcome answers another probe as well if:
+ * 
+ *   - it found an event, which is newer than the threshold of the other probe and within its 
+ *     since date, or
+ *   - it found no event, since a date not later than the one of the other probe and newer than 
+ *     a threshold not later than the one of the other probe.
+ * 
+ * An outcome is reused for a short while only, as new events keep coming. While a probe is 
+ * running, the same probes of other jobs wait for it instead of starting lshistory themselves, 
+ * but no longer than their own lshistory may run, after which they run it on their own. The 
+ * least recently used outcomes are dropped when the cache is full.
+ */
+public class LshistoryCache {
+    private static final String KEY_SEPARATOR = "\u0000";
+
+    private static final LshistoryCache INSTANCE = 
+                new LshistoryCache(PropUtils.getLshistoryCacheMaxEntries(), 
+                                TimeUnit.SECONDS.toMillis(PropUtils.getLshistoryCacheTimeout()));
+
+    /**
+     * A probe of a load rule, see ClearTool.probeLatestCommitDates.
+     */
+    public interface Probe {
+        /**
+         * @return the date of the first event newer than the threshold, null if there wasn't any
+         */
+        Date call() throws InterruptedException, IOException;
+    }
+
+    private final long timeout;
+    private final Map<String, Outcome> outcomes;
+    // the probes running, by key
+    private final Map<String, Outcome> running = new HashMap<String, Outcome>();
+    private long hits;
+    private long misses;
+
+    public static LshistoryCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param maxEntries the number of outcomes kept at most
+     * @param timeout for how many milliseconds an outcome is reused
+     */
+    LshistoryCache(final int maxEntries, long timeout) {
+        this.timeout = timeout;
+        // access ordered, hence the eldest entry is the least recently used one
+        this.outcomes = new LinkedHashMap<String, Outcome>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Outcome> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param viewname
+     * @param branch
+     * @param loadRule
+     * @param filter
+     * @return the key of the probes of the load rule
+     */
+    public static String key(String viewname, String branch, String loadRule, boolean filter) {
+        return viewname + KEY_SEPARATOR + branch + KEY_SEPARATOR + loadRule + KEY_SEPARATOR + filter;
+    }
+
+    /**
+     * Probes waiting for a running probe as long as it takes.
+     * 
+     * @see #probe(String, Date, Date, long, Probe)
+     */
+    public Date probe(String key, Date since, Date threshold, Probe probe) throws InterruptedException, 
+                                                                                          IOException {
+        return probe(key, since, threshold, 0, probe);
+    }
+
+    /**
+     * @param key see key
+     * @param since date-time the probe lists events since, null for the default
+     * @param threshold the baseline date of the load rule, null if any event is newer
+     * @param wait for how many milliseconds to wait for a running probe before calling probe 
+     *        instead, 0 if there isn't any limit
+     * @param probe which is called unless an outcome answers it
+     * @return the date of the first event newer than threshold, null if there wasn't any
+     * @throws IOException if the probe fails
+     * @throws InterruptedException
+     */
+    public Date probe(String key, Date since, Date threshold, long wait, Probe probe) 
+                                                               throws InterruptedException, IOException {
+        long waitUntil = (wait > 0) ? System.currentTimeMillis() + wait : 0;
+        Outcome outcome;
+        // if the probes of other jobs may wait for outcome
+        boolean shared = true;
+
+        while (true) {
+            Outcome other;
+
+            synchronized (this) {
+                outcome = outcomes.get(key);
+
+                if (outcome != null && System.currentTimeMillis() - outcome.created < timeout 
+                                                              && outcome.answers(since, threshold)) {
+                    hits++;
+                    return outcome.found;
+                }
+                other = running.get(key);
+
+                if (other == null) {
+                    misses++;
+                    outcome = new Outcome(since, threshold);
+                    running.put(key, outcome);
+                    break;
+                }
+            }
+            if (waitUntil <= 0) {
+                other.done.await();
+            } else {
+                long remaining = waitUntil - System.currentTimeMillis();
+
+                if (remaining <= 0 || other.done.await(remaining, TimeUnit.MILLISECONDS) == false) {
+                    // the running probe may hang, ours is run on its own and within its own timeout
+                    synchronized (this) {
+                        misses++;
+                    }
+                    outcome = new Outcome(since, threshold);
+                    shared = false;
+                    break;
+                }
+            }
+
+            synchronized (this) {
+                if (other.failed == false && other.answers(since, threshold)) {
+                    hits++;
+                    return other.found;
+                }
+            }
+            // the probe we waited for doesn't answer ours, ours is run unless another one is 
+            // running by now
+        }
+
+        try {
+            outcome.found = probe.call();
+            outcome.created = System.currentTimeMillis();
+            outcome.failed = false;
+
+            synchronized (this) {
+                outcomes.put(key, outcome);
+            }
+            return outcome.found;
+        } finally {
+            if (shared == true) {
+                synchronized (this) {
+                    running.remove(key);
+                }
+            }
+            outcome.done.countDown();
+        }
+    }
+
+    public synchronized int size() {
+        return outcomes.size();
+    }
+
+    /**
+     * @return the number of probes answered without running lshistory
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of probes which ran lshistory
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Forgets all outcomes.
+     */
+    public synchronized void invalidate() {
+        outcomes.clear();
+    }
+
+    private static class Outcome {
+        private final Date since;
+        private final Date threshold;
+        private final CountDownLatch done = new CountDownLatch(1);
+        // set by the thread running the probe before done is counted down
+        private volatile Date found;
+        private volatile long created;
+        private volatile boolean failed = true;
+
+        public Outcome(Date since, Date threshold) {
+            this.since = since;
+            this.threshold = threshold;
+        }
+
+        /**
+         * @param since
+         * @param threshold
+         * @return if this outcome is the outcome of a probe since since, newer than threshold
+         */
+        public boolean answers(Date since, Date threshold) {
+            if (found != null) {
+                return (since == null ? this.since == null : found.before(since) == false) 
+                                             && (threshold == null || found.after(threshold));
+            }
+            return covers(since) && (this.threshold == null 
+                                        || (threshold != null && threshold.before(this.threshold) == false));
+        }
+
+        /**
+         * @param since
+         * @return if this outcome has looked at all events since since
+         */
+        private boolean covers(Date since) {
+            // without a date lshistory uses a default, which only covers itself
+            if (this.since == null || since == null) {
+                return this.since == since;
+            }
+            return since.before(this.since) == false;
+        }
+    }
+}
@@ -24,6 +24,7 @@
 
 package jenkins.plugins.simpleclearcase;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -31,6 +32,7 @@ import java.util.List;
 
 import hudson.model.User;
 import hudson.scm.ChangeLogSet;
+import jenkins.plugins.simpleclearcase.util.StringPool;
 
 public class SimpleClearCaseChangeLogEntry extends ChangeLogSet.Entry {
 
@@ -43,34 +45,49 @@ public class SimpleClearCaseChangeLogEntry extends ChangeLogSet.Entry {
      *  %Vn - Version Id
      *  %e  - Event description
      *  %o  - Operation
-     *  %c  - Comment
+     *  %On - Object identifier (OID) of the event record, which identifies the event
+     *  %Nc - Comment, without any newline appended
      *    
      */
 
+    // the fields are separated by tabs and each record is ended by a line of its own, as the 
+    // comment is the last field it may contain tabs and newlines without breaking the record.
     // for the purpose of calling -fmt through a setview -exec we need to escape
-    // the newline character otherwise it will break after invoking -exec
-    // through the spawned shell from cleartool.
-    public static final String LSHISTORY_FORMATTING     = "%Nd| |%u| |%En| |%Vn| |%e| |%o| |%Nc\\n";
-    public static final String LSHISTORY_SPLIT_SEQUENCE = "\\| \\|";
+    // the newline and tab characters otherwise it will break after invoking -exec
+    // through the spawned shell from cleartool. The spaces of the record end makes sure 
+    // the format is quoted, such that the shell leaves the escapes alone.
+    public static final String LSHISTORY_RECORD_END      = "@@simpleclearcase end of record@@";
+    public static final String LSHISTORY_FORMATTING      = "%Nd\\t%u\\t%En\\t%Vn\\t%e\\t%o\\t%On\\t%Nc\\n" 
+                                                                      + LSHISTORY_RECORD_END + "\\n";
+    public static final char   LSHISTORY_FIELD_SEPARATOR = '\t';
+    public static final int    LSHISTORY_FIELDS          = 8;
 
     private Date date;
+    // all but the comment are canonicalized through StringPool, as they are shared by many entries
     private String user;
-    private String version;
+    // the version is split into its branch, which ends with a slash, and the version number
+    private String versionBranch;
+    private String versionNumber;
     private String eventDescription;
     private String operation;
     private String comment;
+    // the OID of the event, null for entries of changelogs written by earlier versions
+    private String eventId;
     private SimpleClearCaseChangeLogSet parent;
     private List<FileElement> elements;
+    // an unmodifiable view of the paths of elements, the paths are created when read
+    private List<String> affectedPaths;
 
     public SimpleClearCaseChangeLogEntry(Date date, String user, String version, 
                                               String eventDescription, String operation, String comment) {
         this.date             = date;
-        this.user             = user;
-        this.version          = version;
-        this.eventDescription = eventDescription;
-        this.operation        = operation;
+        this.user             = intern(user);
+        this.eventDescription = intern(eventDescription);
+        this.operation        = intern(operation);
         this.comment          = comment;
+        setVersion(version);
         this.elements         = new ArrayList<FileElement>();
+        this.affectedPaths    = new AffectedPaths();
     }
 
     public SimpleClearCaseChangeLogEntry(Date date, String user, String path, String version, String 
@@ -79,6 +96,20 @@ public class SimpleClearCaseChangeLogEntry extends ChangeLogSet.Entry {
         this.addPath(path);
     }
 
+    /**
+     * @return a copy without parent, such that the event can be added to another set as well
+     */
+    public SimpleClearCaseChangeLogEntry copy() {
+        SimpleClearCaseChangeLogEntry ret = new SimpleClearCaseChangeLogEntry(date, user, getVersion(), 
+                                                             eventDescription, operation, comment);
+        ret.eventId = eventId;
+
+        for (FileElement e : elements) {
+            ret.elements.add(new FileElement(e.getFilePath(), e.getVersion()));
+        }
+        return ret;
+    }
+
     public Date getDate() {
         return date;
     }
@@ -96,15 +127,26 @@ public class SimpleClearCaseChangeLogEntry extends ChangeLogSet.Entry {
     }
 
     public void setUser(String user) {
-        this.user = user;
+        this.user = intern(user);
     }
 
     public String getVersion() {
-        return version;
+        if (versionBranch == null) {
+            return versionNumber;
+        }
+        return versionBranch + versionNumber;
     }
 
     public void setVersion(String version) {
-        this.version = version;
+        int i = (version != null) ? version.lastIndexOf('/') : -1;
+
+        if (i < 0) {
+            versionBranch = null;
+            versionNumber = intern(version);
+        } else {
+            versionBranch = intern(version.substring(0, i + 1));
+            versionNumber = intern(version.substring(i + 1));
+        }
     }
 
     public String getOperation() {
@@ -112,7 +154,7 @@ public class SimpleClearCaseChangeLogEntry extends ChangeLogSet.Entry {
     }
 
     public void setOperation(String operation) {
-        this.operation = operation;
+        this.operation = intern(operation);
     }
 
     public String getEventDescription() {
@@ -120,7 +162,7 @@ public class SimpleClearCaseChangeLogEntry extends ChangeLogSet.Entry {
     }
 
     public void setEventDescription(String eventDescription) {
-        this.eventDescription = eventDescription;
+        this.eventDescription = intern(eventDescription);
     }
 
     public String getComment() {
@@ -131,6 +173,14 @@ public class SimpleClearCaseChangeLogEntry extends ChangeLogSet.Entry {
         this.comment = comment;
     }
 
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
     @Override
     public String getMsg() {
         return comment;
@@ -154,20 +204,32 @@ public class SimpleClearCaseChangeLogEntry extends ChangeLogSet.Entry {
      * @return true if any path starts with prefix otherwise false
      */
     public boolean containsPathWithPrefix(String prefix) {
-        for (String path : getAffectedPaths()) {
-            if (path.startsWith(prefix) == true) {
+        for (FileElement e : elements) {
+            if (e.getPath() != null && e.getPath().startsWith(prefix) == true) {
                 return true;
             }
         }
         return false;
     }
 
+    private static String intern(String s) {
+        return StringPool.getDefault().intern(s);
+    }
+
     @Override
     public Collection<String> getAffectedPaths() {
-        Collection<String> ret = new ArrayList<String>();
-        for (FileElement e : elements) {
-            ret.add(e.getFilePath());
+        return affectedPaths;
+    }
+
+    private class AffectedPaths extends AbstractList<String> {
+        @Override
+        public String get(int index) {
+            return elements.get(index).getFilePath();
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
         }
-        return ret;
     }
 }
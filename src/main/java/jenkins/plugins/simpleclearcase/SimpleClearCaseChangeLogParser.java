@@ -30,39 +30,46 @@ import hudson.scm.ChangeLogParser;
 import hudson.scm.ChangeLogSet;
 import hudson.scm.ChangeLogSet.Entry;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import jenkins.plugins.simpleclearcase.util.DateUtil;
 import jenkins.plugins.simpleclearcase.util.DebugHelper;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import jenkins.plugins.simpleclearcase.util.LoadRuleIndex;
+import jenkins.plugins.simpleclearcase.util.PropUtils;
 
 import org.xml.sax.SAXException;
 
 public class SimpleClearCaseChangeLogParser extends ChangeLogParser {
-    private static final String XML_VERSION              = "1.0";
     private static final String XML_ENCODING             = "UTF-8";
-    private static final String XML_INDENT               = "yes";
-    private static final String XML_INDENT_SPACE         = "2";
-    private static final String XML_INDENT_SPACE_SETTING = "{http://xml.apache.org/xslt}indent-amount";
 
     private static final String CHANGELOG         = "changelog";
     private static final String VERSION           = "version";
@@ -74,150 +81,607 @@ public class SimpleClearCaseChangeLogParser extends ChangeLogParser {
     private static final String ITEM              = "item";
     private static final String OPERATION         = "operation";
     private static final String EVENT_DESCRIPTION = "eventdescription";
+    private static final String EVENT_ID          = "eventid";
+
+    // the compact schema, in which the fields of an entry are attributes referring to dictionaries
+    private static final int    COMPACT_SCHEMA_VERSION      = 2;
+    private static final String SCHEMA_VERSION              = "version";
+    private static final String LOAD_RULES                  = "loadrules";
+    private static final String LOAD_RULE                   = "l";
+    private static final String USERS                       = "users";
+    private static final String USER_WORD                   = "u";
+    private static final String OPERATIONS                  = "operations";
+    private static final String OPERATION_WORD              = "o";
+    private static final String EVENT_DESCRIPTIONS          = "eventdescriptions";
+    private static final String EVENT_DESCRIPTION_WORD      = "e";
+    private static final String DATE_ATTRIBUTE              = "d";
+    private static final String USER_ATTRIBUTE              = "u";
+    private static final String OPERATION_ATTRIBUTE         = "o";
+    private static final String EVENT_DESCRIPTION_ATTRIBUTE = "e";
+    private static final String VERSION_ATTRIBUTE           = "v";
+    private static final String EVENT_ID_ATTRIBUTE          = "id";
+    private static final String LOAD_RULE_ATTRIBUTE         = "l";
+    private static final String COMMENT_ELEMENT             = "c";
+    private static final String PATH_ELEMENT                = "p";
+
+    private static final List<String> DICTIONARIES = Arrays.asList(LOAD_RULES, USERS, OPERATIONS, 
+                                                                                       EVENT_DESCRIPTIONS);
+
+    // the elements of an entry holding its fields, the items are read separately
+    private static final Set<String> FIELDS = new HashSet<String>(Arrays.asList(DATE, USER, VERSION, 
+                                                          OPERATION, EVENT_DESCRIPTION, EVENT_ID, COMMENT));
+
+    private static final Logger LOGGER = Logger.getLogger(SimpleClearCaseChangeLogParser.class.getName());
 
     private DateUtil dateUtil;
+    // a factory isn't guaranteed to be thread-safe, hence each parser has its own
+    private XMLInputFactory inputFactory;
     
     public SimpleClearCaseChangeLogParser() {
         dateUtil = new DateUtil();
+        inputFactory = createInputFactory();
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory ret = XMLInputFactory.newInstance();
+        // a changelog has neither DTD nor external entities
+        ret.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        ret.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return ret;
     }
+
     public boolean writeChangeLog(File file, SimpleClearCaseChangeLogSet set,
                                                                TaskListener listener) throws IOException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        Document doc;
+        return writeChangeLog(file, set, listener, Collections.<String>emptyList());
+    }
 
-        try {
-            doc = factory.newDocumentBuilder().newDocument();
-        } catch (ParserConfigurationException ex) {
-            DebugHelper.error(listener, "Couldn't create a new DocumentBuilder, ExceptionMsg: e: %s",
-                                                                                         ex.getMessage());
-            return false;
+    /**
+     * Writes the changelog in the schema, indentation and compression of the properties.
+     * 
+     * @param file
+     * @param set
+     * @param listener
+     * @param loadRules the paths are written relative to these in the compact schema
+     * @return true if the changelog was written
+     * @throws IOException
+     */
+    public boolean writeChangeLog(File file, SimpleClearCaseChangeLogSet set, TaskListener listener, 
+                                                           List<String> loadRules) throws IOException {
+        if (PropUtils.getChangeLogSchemaVersion() < COMPACT_SCHEMA_VERSION) {
+            return writeChangeLog(file, set, listener, PropUtils.getChangeLogIndent());
         }
+        return writeCompactChangeLog(file, set, listener, loadRules, PropUtils.getChangeLogIndent(), 
+                                                                          PropUtils.getChangeLogCompress());
+    }
 
-        doc.setXmlVersion(XML_VERSION);
-
-        Element changelog = doc.createElement(CHANGELOG);
-
-        for (SimpleClearCaseChangeLogEntry e : set.getEntries()) {
-            Element entry = doc.createElement(ENTRY);
+    /**
+     * Writes the changelog entry by entry, hence the memory needed doesn't depend on the number 
+     * of entries.
+     * 
+     * @param file
+     * @param set
+     * @param listener
+     * @param indent if the elements are indented, otherwise the changelog is written without 
+     *               any whitespace between the elements
+     * @return true if the changelog was written
+     * @throws IOException
+     */
+    public boolean writeChangeLog(File file, SimpleClearCaseChangeLogSet set, TaskListener listener, 
+                                                                     boolean indent) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), XML_ENCODING));
 
-            Element date = doc.createElement(DATE);
-            date.setTextContent(dateUtil.formatDate(e.getDate()));
+        try {
+            ChangeLogXmlWriter xml = new ChangeLogXmlWriter(out, indent);
+
+            xml.startDocument();
+            xml.startElement(CHANGELOG);
+
+            for (SimpleClearCaseChangeLogEntry e : set.getEntries()) {
+                xml.startElement(ENTRY);
+                xml.element(DATE, dateUtil.formatDate(e.getDate()));
+                xml.element(USER, e.getUser());
+                xml.element(OPERATION, e.getOperation());
+                xml.element(EVENT_DESCRIPTION, e.getEventDescription());
+                if (e.getEventId() != null) {
+                    xml.element(EVENT_ID, e.getEventId());
+                }
+                xml.element(VERSION, e.getVersion());
+                xml.element(COMMENT, e.getComment());
+
+                xml.startElement(ITEMS);
+                // TODO when changing Entry such that file elements contain versions
+                // then this must be also changed
+                for (String filePath : e.getAffectedPaths()) {
+                    xml.element(ITEM, filePath);
+                }
+                xml.endElement(ITEMS);
+                xml.endElement(ENTRY);
+            }
+            xml.endElement(CHANGELOG);
+            xml.endDocument();
+        } catch (IOException ex) {
+            DebugHelper.error(listener, "Couldn't write the changelog, ExceptionMsg: e: %s", ex.getMessage());
+            throw ex;
+        } finally {
+            out.close();
+        }
+        return true;
+    }
 
-            Element user = doc.createElement(USER);
-            user.setTextContent(e.getUser());
+    /**
+     * Writes the changelog in the compact schema, which is version 2. The users, operations and 
+     * event descriptions are written once in dictionaries ahead of the entries, which refer to 
+     * them by their index, as do the paths to the longest load rule prefixing them. The fields 
+     * of an entry are attributes, its date is written in milliseconds since the epoch.
+     * 
+     * @param file
+     * @param set
+     * @param listener
+     * @param loadRules the paths prefixed by any of these are written relative to it
+     * @param indent if the elements are indented
+     * @param compress if the changelog is compressed with gzip
+     * @return true if the changelog was written
+     * @throws IOException
+     */
+    public boolean writeCompactChangeLog(File file, SimpleClearCaseChangeLogSet set, TaskListener listener, 
+                             List<String> loadRules, boolean indent, boolean compress) throws IOException {
+        List<SimpleClearCaseChangeLogEntry> entries = set.getEntries();
+        LoadRuleIndex index = new LoadRuleIndex(loadRules);
+        Map<String, Integer> users = new LinkedHashMap<String, Integer>();
+        Map<String, Integer> operations = new LinkedHashMap<String, Integer>();
+        Map<String, Integer> eventDescriptions = new LinkedHashMap<String, Integer>();
+
+        for (SimpleClearCaseChangeLogEntry e : entries) {
+            addWord(users, e.getUser());
+            addWord(operations, e.getOperation());
+            addWord(eventDescriptions, e.getEventDescription());
+        }
 
-            Element comment = doc.createElement(COMMENT);
-            comment.setTextContent(e.getComment());
+        OutputStream os = new FileOutputStream(file);
+        Writer out;
 
-            Element version = doc.createElement(VERSION);
-            version.setTextContent(e.getVersion());
+        try {
+            out = new BufferedWriter(new OutputStreamWriter(compress ? new GZIPOutputStream(os) : os, XML_ENCODING));
+        } catch (IOException e) {
+            os.close();
+            throw e;
+        }
 
-            Element operation = doc.createElement(OPERATION);
-            operation.setTextContent(e.getOperation());
+        try {
+            ChangeLogXmlWriter xml = new ChangeLogXmlWriter(out, indent);
 
-            Element eventDescription = doc.createElement(EVENT_DESCRIPTION);
-            eventDescription.setTextContent(e.getEventDescription());
+            xml.startDocument();
+            xml.startElement(CHANGELOG);
+            xml.attribute(SCHEMA_VERSION, Integer.toString(COMPACT_SCHEMA_VERSION));
 
-            Element items = doc.createElement(ITEMS);
-            // TODO when changing Entry such that file elements contain versions
-            // then this must be also changed
-            for (String filePath : e.getAffectedPaths()) {
-                Element item = doc.createElement(ITEM);
-                item.setTextContent(filePath);
-                items.appendChild(item);
+            xml.startElement(LOAD_RULES);
+            for (int i = 0; i < index.size(); i++) {
+                xml.element(LOAD_RULE, index.getLoadRule(i));
+            }
+            xml.endElement(LOAD_RULES);
+            writeDictionary(xml, USERS, USER_WORD, users);
+            writeDictionary(xml, OPERATIONS, OPERATION_WORD, operations);
+            writeDictionary(xml, EVENT_DESCRIPTIONS, EVENT_DESCRIPTION_WORD, eventDescriptions);
+
+            for (SimpleClearCaseChangeLogEntry e : entries) {
+                xml.startElement(ENTRY);
+                xml.attribute(DATE_ATTRIBUTE, (e.getDate() != null) ? Long.toString(e.getDate().getTime()) : null);
+                xml.attribute(USER_ATTRIBUTE, reference(users, e.getUser()));
+                xml.attribute(OPERATION_ATTRIBUTE, reference(operations, e.getOperation()));
+                xml.attribute(EVENT_DESCRIPTION_ATTRIBUTE, 
+                                                       reference(eventDescriptions, e.getEventDescription()));
+                xml.attribute(VERSION_ATTRIBUTE, e.getVersion());
+                xml.attribute(EVENT_ID_ATTRIBUTE, e.getEventId());
+
+                if (e.getComment() != null && e.getComment().length() > 0) {
+                    xml.element(COMMENT_ELEMENT, e.getComment());
+                }
+
+                for (String filePath : e.getAffectedPaths()) {
+                    int lr = index.longestPrefix(filePath);
+
+                    xml.startElement(PATH_ELEMENT);
+                    if (lr != -1) {
+                        xml.attribute(LOAD_RULE_ATTRIBUTE, Integer.toString(lr));
+                        filePath = filePath.substring(index.getLoadRule(lr).length());
+                    }
+                    if (filePath.length() > 0) {
+                        xml.text(filePath);
+                    }
+                    xml.endElement(PATH_ELEMENT);
+                }
+                xml.endElement(ENTRY);
             }
+            xml.endElement(CHANGELOG);
+            xml.endDocument();
+        } catch (IOException ex) {
+            DebugHelper.error(listener, "Couldn't write the changelog, ExceptionMsg: e: %s", ex.getMessage());
+            throw ex;
+        } finally {
+            out.close();
+        }
+        return true;
+    }
+
+    private static void addWord(Map<String, Integer> dictionary, String word) {
+        if (word != null && dictionary.containsKey(word) == false) {
+            dictionary.put(word, dictionary.size());
+        }
+    }
 
-            entry.appendChild(date);
-            entry.appendChild(user);
-            entry.appendChild(operation);
-            entry.appendChild(eventDescription);
-            entry.appendChild(version);
-            entry.appendChild(comment);
-            entry.appendChild(items);
+    private static String reference(Map<String, Integer> dictionary, String word) {
+        return (word != null) ? Integer.toString(dictionary.get(word)) : null;
+    }
 
-            changelog.appendChild(entry);
+    private static void writeDictionary(ChangeLogXmlWriter xml, String name, String wordName, 
+                                                      Map<String, Integer> dictionary) throws IOException {
+        xml.startElement(name);
+        // the words are in the order of their indexes
+        for (String word : dictionary.keySet()) {
+            xml.element(wordName, word);
         }
+        xml.endElement(name);
+    }
 
-        doc.appendChild(changelog);
+    public List<SimpleClearCaseChangeLogEntry> readChangeLog(File file) throws 
+                                                 IOException, ParserConfigurationException, SAXException {
+        return readChangeLog(file, 0, Integer.MAX_VALUE);
+    }
 
-        TransformerFactory tf = TransformerFactory.newInstance();
-        Transformer t;
-        try {
-            t = tf.newTransformer();
+    /**
+     * @param file
+     * @param offset the number of entries to skip
+     * @param limit the maximum number of entries to read
+     * @return the entries from offset, the file is only read until the last of them
+     */
+    public List<SimpleClearCaseChangeLogEntry> readChangeLog(File file, int offset, int limit) throws 
+                                                                                IOException, SAXException {
+        List<SimpleClearCaseChangeLogEntry> ret = new ArrayList<SimpleClearCaseChangeLogEntry>();
+        InputStream is = openChangeLog(file);
 
-            t.setOutputProperty(OutputKeys.ENCODING, XML_ENCODING);
-            t.setOutputProperty(OutputKeys.INDENT, XML_INDENT);
-            t.setOutputProperty(XML_INDENT_SPACE_SETTING, XML_INDENT_SPACE);
+        try {
+            read(is, offset, limit, ret);
+        } finally {
+            is.close();
+        }
+        return ret;
+    }
 
-            DOMSource src = new DOMSource(doc);
-            StreamResult res = new StreamResult(new FileOutputStream(file));
+    /**
+     * @param file
+     * @return a stream of the changelog, which is decompressed if it's compressed with gzip
+     */
+    private static InputStream openChangeLog(File file) throws IOException {
+        InputStream is = new BufferedInputStream(new FileInputStream(file));
 
-            t.transform(src, res);
-        } catch (TransformerException ex) {
-            DebugHelper.error(listener, 
-                               "Couldn't create transform and write to resultStream, ExceptionMsg: e: %s",
-                                                                                         ex.getMessage());
-            return false;
+        try {
+            is.mark(2);
+            int magic = is.read() | (is.read() << 8);
+            is.reset();
+            return (magic == GZIPInputStream.GZIP_MAGIC) ? new GZIPInputStream(is) : is;
+        } catch (IOException e) {
+            is.close();
+            throw e;
         }
-        return true;
     }
 
-    public List<SimpleClearCaseChangeLogEntry> readChangeLog(File file) throws 
-                                                 IOException, ParserConfigurationException, SAXException {
-        return readChangeLog(new FileInputStream(file));
+    /**
+     * @param file
+     * @return the number of entries, which are counted without being created
+     */
+    public int countEntries(File file) throws IOException, SAXException {
+        InputStream is = openChangeLog(file);
+
+        try {
+            return read(is, 0, Integer.MAX_VALUE, null);
+        } finally {
+            is.close();
+        }
     }
 
+    /**
+     * Reads the entries in one pass over the changelog, without building a document. The fields 
+     * of an entry are the text of the first element with the name of the field within the entry, 
+     * a missing field is null.
+     * 
+     * @param is an uncompressed changelog, isn't closed
+     * @return the entries of the first changelog element
+     */
     public List<SimpleClearCaseChangeLogEntry> readChangeLog(InputStream is) throws 
                                                  IOException, ParserConfigurationException, SAXException {
         List<SimpleClearCaseChangeLogEntry> ret = new ArrayList<SimpleClearCaseChangeLogEntry>();
+        read(is, 0, Integer.MAX_VALUE, ret);
+        return ret;
+    }
+
+    /**
+     * @param is isn't closed
+     * @param offset the number of entries to skip, which are neither parsed nor created
+     * @param limit the maximum number of entries to add to ret, reading stops after them
+     * @param ret where to add the entries read, null to only count the entries
+     * @return the number of entries read, including the skipped ones
+     */
+    private int read(InputStream is, int offset, int limit, List<SimpleClearCaseChangeLogEntry> ret) 
+                                                                                       throws SAXException {
+        XMLStreamReader xml;
+
+        try {
+            xml = inputFactory.createXMLStreamReader(is);
+        } catch (XMLStreamException e) {
+            throw new SAXException(e);
+        }
 
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(is);
+        // the index after the last entry to read
+        int last = (limit > Integer.MAX_VALUE - offset) ? Integer.MAX_VALUE : offset + limit;
+
+        try {
+            // proper change log should only contain a CHANGE LOG element
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals(CHANGELOG)) {
+                    // changelogs without a schema version are of the first one
+                    String version = xml.getAttributeValue(null, SCHEMA_VERSION);
+
+                    if (version != null && Integer.parseInt(version) >= COMPACT_SCHEMA_VERSION) {
+                        return readCompact(xml, offset, last, ret);
+                    }
+                    return read(xml, offset, last, ret);
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new SAXException(e);
+        } catch (NumberFormatException e) {
+            throw new SAXException(e);
+        } finally {
+            try {
+                xml.close();
+            } catch (XMLStreamException e) {
+                // closing the reader doesn't close the stream, there is nothing to release
+            }
+        }
+        return 0;
+    }
 
-        // proper change log should only contain a CHANGE LOG element
-        Element changelog = (Element) doc.getElementsByTagName(CHANGELOG).item(0);
+    /**
+     * Reads the entries of the first schema, in which the fields of an entry are elements.
+     * 
+     * @param xml positioned at the start of the changelog element
+     * @param offset
+     * @param last the index after the last entry to read
+     * @param ret
+     * @return the number of entries read, including the skipped ones
+     */
+    private int read(XMLStreamReader xml, int offset, int last, List<SimpleClearCaseChangeLogEntry> ret) 
+                                                                               throws XMLStreamException {
+        int index = 0;
+
+        // the fields of the entry being read, and the name of the field element being read
+        Map<String, String> fields = new HashMap<String, String>();
+        List<String> items = new ArrayList<String>();
+        StringBuilder text = new StringBuilder();
+        String field = null;
+        boolean inEntry = false;
+
+        while (index < last && xml.hasNext()) {
+            switch (xml.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                String name = xml.getLocalName();
+
+                if (inEntry == false) {
+                    if (name.equals(ENTRY)) {
+                        inEntry = true;
+                        fields.clear();
+                        items = new ArrayList<String>();
+                    }
+                } else if (field == null && index >= offset && ret != null 
+                                                    && (FIELDS.contains(name) || name.equals(ITEM))) {
+                    field = name;
+                    text.setLength(0);
+                }
+                break;
+
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                if (field != null) {
+                    text.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+                }
+                break;
+
+            case XMLStreamConstants.END_ELEMENT:
+                String end = xml.getLocalName();
+
+                if (field != null && end.equals(field)) {
+                    if (field.equals(ITEM)) {
+                        items.add(text.toString().trim());
+                    } else if (fields.containsKey(field) == false) {
+                        fields.put(field, text.toString().trim());
+                    }
+                    field = null;
+                } else if (inEntry == true && end.equals(ENTRY)) {
+                    if (index >= offset && ret != null) {
+                        ret.add(createEntry(fields, items));
+                    }
+                    index++;
+                    inEntry = false;
+                } else if (inEntry == false && end.equals(CHANGELOG)) {
+                    return index;
+                }
+                break;
+
+            default:
+                break;
+            }
+        }
+        return index;
+    }
 
-        // fetch all the entries from changelog
-        NodeList entries = changelog.getElementsByTagName(ENTRY);
+    /**
+     * Reads the entries of the compact schema, the dictionaries preceding them are always read.
+     * 
+     * @param xml positioned at the start of the changelog element
+     * @param offset
+     * @param last the index after the last entry to read
+     * @param ret
+     * @return the number of entries read, including the skipped ones
+     */
+    private int readCompact(XMLStreamReader xml, int offset, int last, List<SimpleClearCaseChangeLogEntry> ret) 
+                                                                               throws XMLStreamException {
+        Map<String, List<String>> dictionaries = new HashMap<String, List<String>>();
+        for (String name : DICTIONARIES) {
+            dictionaries.put(name, new ArrayList<String>());
+        }
+        int index = 0;
+
+        while (index < last && xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = xml.getLocalName();
+
+            if (name.equals(ENTRY)) {
+                if (index >= offset && ret != null) {
+                    ret.add(readCompactEntry(xml, dictionaries));
+                } else {
+                    skipElement(xml);
+                }
+                index++;
+            } else if (dictionaries.containsKey(name)) {
+                List<String> words = dictionaries.get(name);
+
+                while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    words.add(xml.getElementText());
+                }
+            } else {
+                skipElement(xml);
+            }
+        }
+        return index;
+    }
 
-        // as NodeList doesn't implement iterable...
-        for (int i = 0; i < entries.getLength(); i++) {
-            Element elemEntry = (Element) entries.item(i);
+    /**
+     * @param xml positioned at the start of the entry element, at its end when returning
+     * @param dictionaries
+     * @return the entry
+     */
+    private SimpleClearCaseChangeLogEntry readCompactEntry(XMLStreamReader xml, 
+                                       Map<String, List<String>> dictionaries) throws XMLStreamException {
+        String date = xml.getAttributeValue(null, DATE_ATTRIBUTE);
+        String user = lookup(xml, dictionaries.get(USERS), USER_ATTRIBUTE);
+        String operation = lookup(xml, dictionaries.get(OPERATIONS), OPERATION_ATTRIBUTE);
+        String eventDescription = lookup(xml, dictionaries.get(EVENT_DESCRIPTIONS), EVENT_DESCRIPTION_ATTRIBUTE);
+        String version = xml.getAttributeValue(null, VERSION_ATTRIBUTE);
+        String eventId = xml.getAttributeValue(null, EVENT_ID_ATTRIBUTE);
+        String comment = "";
+        List<String> paths = new ArrayList<String>();
+
+        while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = xml.getLocalName();
+
+            if (name.equals(COMMENT_ELEMENT)) {
+                comment = xml.getElementText();
+            } else if (name.equals(PATH_ELEMENT)) {
+                String loadRule = lookup(xml, dictionaries.get(LOAD_RULES), LOAD_RULE_ATTRIBUTE);
+                String path = xml.getElementText();
+                paths.add((loadRule != null) ? loadRule + path : path);
+            } else {
+                skipElement(xml);
+            }
+        }
 
-            String date = elemEntry.getElementsByTagName(DATE).item(0).getTextContent().trim();
-            String user = elemEntry.getElementsByTagName(USER).item(0).getTextContent().trim();
-            String version = elemEntry.getElementsByTagName(VERSION).item(0).getTextContent().trim();
-            String operation = elemEntry.getElementsByTagName(OPERATION).item(0).getTextContent().trim();
-            String eventDescription = elemEntry.getElementsByTagName(EVENT_DESCRIPTION).item(0).getTextContent().trim();
-            String comment = elemEntry.getElementsByTagName(COMMENT).item(0).getTextContent().trim();
+        SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(
+                           (date != null) ? new Date(Long.parseLong(date)) : null, user, version, 
+                           eventDescription, operation, comment);
+        entry.setEventId(eventId);
 
-            // we create the entry without any file path reference
-            SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(
-                           dateUtil.parseDate(date), user, version, eventDescription, operation, comment);
-            // adding all available file paths to entry
-            addFilePathsToEntry(elemEntry.getElementsByTagName(ITEM), entry);
-            ret.add(entry);
+        for (String path : paths) {
+            entry.addPath(path);
         }
-        return ret;
+        return entry;
     }
 
-    private void addFilePathsToEntry(NodeList items, SimpleClearCaseChangeLogEntry entry) {
-        for (int i = 0; i < items.getLength(); i++) {
-            Element elemItem = (Element) items.item(i);
-            entry.addPath(elemItem.getTextContent().trim());
+    /**
+     * @param xml positioned at a start element
+     * @param words
+     * @param attribute
+     * @return the word the attribute of the element refers to, null if it has no such attribute
+     */
+    private static String lookup(XMLStreamReader xml, List<String> words, String attribute) 
+                                                                               throws XMLStreamException {
+        String ref = xml.getAttributeValue(null, attribute);
+        if (ref == null) {
+            return null;
+        }
+        int i = Integer.parseInt(ref);
+
+        if (i < 0 || i >= words.size()) {
+            throw new XMLStreamException("Reference " + ref + " of " + attribute + " to a missing word", 
+                                                                                       xml.getLocation());
+        }
+        return words.get(i);
+    }
+
+    /**
+     * @param xml positioned at a start element, at its end when returning
+     */
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        for (int depth = 1; depth > 0;) {
+            switch (xml.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private SimpleClearCaseChangeLogEntry createEntry(Map<String, String> fields, List<String> items) {
+        String date = fields.get(DATE);
+
+        // we create the entry without any file path reference
+        SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(
+                           (date != null) ? dateUtil.parseDate(date) : null, fields.get(USER), fields.get(VERSION), 
+                           fields.get(EVENT_DESCRIPTION), fields.get(OPERATION), fields.get(COMMENT));
+        // changelogs written by earlier versions don't have any event id
+        entry.setEventId(fields.get(EVENT_ID));
+
+        // adding all available file paths to entry
+        for (String item : items) {
+            entry.addPath(item);
         }
+        return entry;
     }
 
     @Override
     public ChangeLogSet<? extends Entry> parse(@SuppressWarnings("rawtypes") AbstractBuild build,
                                                     File changelogFile) throws IOException, SAXException {
-        List<SimpleClearCaseChangeLogEntry> entries;
-        try {
-            entries = readChangeLog(changelogFile);
-        } catch (ParserConfigurationException e) {
-            return null;
+        ChangeLogSetCache cache = ChangeLogSetCache.get();
+        String stamp = ChangeLogSetCache.stamp(changelogFile);
+        SimpleClearCaseChangeLogSet ret = cache.get(changelogFile, stamp, build);
+
+        if (ret == null) {
+            ret = createSet(build, changelogFile);
+            cache.put(changelogFile, stamp, ret);
         }
-        return new SimpleClearCaseChangeLogSet(build, entries);
+        return ret;
+    }
+
+    private SimpleClearCaseChangeLogSet createSet(AbstractBuild<?, ?> build, File changelogFile) {
+        // the binary changelog is preferred, builds of earlier versions only have the XML one
+        File binaryFile = BinaryChangeLog.getFile(changelogFile);
+        if (binaryFile.exists()) {
+            try {
+                return new SimpleClearCaseChangeLogSet(build, BinaryChangeLog.open(binaryFile));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Couldn't read the binary changelog, reading the XML one instead", e);
+            }
+        }
+
+        // the entries are read when asked for, the revision state knows their number
+        SimpleClearCaseRevisionState state = (build != null) 
+                               ? (SimpleClearCaseRevisionState) build.getAction(SimpleClearCaseRevisionState.class) : null;
+        int size = (state != null) ? state.getChangeLogSize() : SimpleClearCaseChangeLogSet.UNKNOWN_SIZE;
+
+        return new SimpleClearCaseChangeLogSet(build, changelogFile, size);
     }
 }
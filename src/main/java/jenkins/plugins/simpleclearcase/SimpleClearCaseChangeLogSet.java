@@ -21,17 +21,42 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-
 package jenkins.plugins.simpleclearcase;
 
 import hudson.model.AbstractBuild;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.xml.sax.SAXException;
 
+/**
+ * The entries of a changelog, either held in memory or read from the changelog file when asked 
+ * for. A set read from file only keeps the file and the number of entries, each call reads the 
+ * entries asked for, hence a view showing the first entries only reads the start of the file. 
+ * If there is a binary changelog the entries are read from it instead, see BinaryChangeLog. 
+ * Once all entries are read they are kept softly by the set.
+ */
 public class SimpleClearCaseChangeLogSet extends hudson.scm.ChangeLogSet<SimpleClearCaseChangeLogEntry> {
+    public static final int UNKNOWN_SIZE = -1;
+
+    private static final Logger LOGGER = Logger.getLogger(SimpleClearCaseChangeLogSet.class.getName());
+
+    // null if the entries are read from file
     private List<SimpleClearCaseChangeLogEntry> entries;
+    private File file;
+    // null if the entries aren't read from a binary changelog
+    private BinaryChangeLog binary;
+    private volatile int size;
+    // all the entries read from file, dropped when memory is short
+    private volatile SoftReference<List<SimpleClearCaseChangeLogEntry>> allEntries;
 
     protected SimpleClearCaseChangeLogSet(AbstractBuild<?, ?> build, 
                                                             List<SimpleClearCaseChangeLogEntry> entries) {
@@ -43,16 +68,144 @@ public class SimpleClearCaseChangeLogSet extends hudson.scm.ChangeLogSet<SimpleC
         }
     }
 
+    /**
+     * @param build
+     * @param file the changelog
+     * @param size the number of entries in the changelog, UNKNOWN_SIZE if they have to be counted
+     */
+    protected SimpleClearCaseChangeLogSet(AbstractBuild<?, ?> build, File file, int size) {
+        super(build);
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * @param build
+     * @param binary the binary changelog
+     */
+    protected SimpleClearCaseChangeLogSet(AbstractBuild<?, ?> build, BinaryChangeLog binary) {
+        super(build);
+        this.binary = binary;
+        this.size = binary.size();
+    }
+
     public Iterator<SimpleClearCaseChangeLogEntry> iterator() {
-        return entries.iterator();
+        return getEntries().iterator();
     }
 
+    /**
+     * @return all the entries, if read from file they are kept softly by the set
+     */
     public List<SimpleClearCaseChangeLogEntry> getEntries() {
-        return entries;
+        if (entries != null) {
+            return entries;
+        }
+        List<SimpleClearCaseChangeLogEntry> ret = getAllEntriesRead();
+
+        if (ret == null) {
+            ret = Collections.unmodifiableList(read(0, Integer.MAX_VALUE));
+            allEntries = new SoftReference<List<SimpleClearCaseChangeLogEntry>>(ret);
+        }
+        return ret;
+    }
+
+    /**
+     * @return all the entries if they have been read from file and are still kept, otherwise null
+     */
+    private List<SimpleClearCaseChangeLogEntry> getAllEntriesRead() {
+        SoftReference<List<SimpleClearCaseChangeLogEntry>> ref = allEntries;
+        return (ref != null) ? ref.get() : null;
+    }
+
+    /**
+     * @param offset the index of the first entry
+     * @param limit the maximum number of entries
+     * @return the entries from offset
+     */
+    public List<SimpleClearCaseChangeLogEntry> getEntries(int offset, int limit) {
+        List<SimpleClearCaseChangeLogEntry> all = (entries != null) ? entries : getAllEntriesRead();
+
+        if (all != null) {
+            int from = Math.min(offset, all.size());
+            int to = (limit > all.size() - from) ? all.size() : from + limit;
+            return new ArrayList<SimpleClearCaseChangeLogEntry>(all.subList(from, to));
+        }
+        return read(offset, limit);
+    }
+
+    /**
+     * @return the number of entries, if unknown they are counted once without being created
+     */
+    public int size() {
+        if (entries != null) {
+            return entries.size();
+        }
+
+        if (size == UNKNOWN_SIZE) {
+            try {
+                size = new SimpleClearCaseChangeLogParser().countEntries(file);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Couldn't count the entries of " + file, e);
+                return 0;
+            } catch (SAXException e) {
+                LOGGER.log(Level.WARNING, "Couldn't count the entries of " + file, e);
+                return 0;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the file the entries are read from, null if they are held in memory or read 
+     *         from a binary changelog
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the binary changelog the entries are read from, null if there isn't any
+     */
+    BinaryChangeLog getBinaryChangeLog() {
+        return binary;
+    }
+
+    /**
+     * @return the number of entries if known without counting them, otherwise UNKNOWN_SIZE
+     */
+    int getKnownSize() {
+        return (entries != null) ? entries.size() : size;
     }
 
     @Override
     public boolean isEmptySet() {
-        return entries.isEmpty();
+        return size() == 0;
+    }
+
+    private List<SimpleClearCaseChangeLogEntry> read(int offset, int limit) {
+        List<SimpleClearCaseChangeLogEntry> ret;
+
+        if (binary != null) {
+            ret = binary.getEntries(offset, limit);
+            for (SimpleClearCaseChangeLogEntry entry : ret) {
+                entry.setParent(this);
+            }
+            return ret;
+        }
+
+        try {
+            ret = new SimpleClearCaseChangeLogParser().readChangeLog(file, offset, limit);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Couldn't read the entries of " + file, e);
+            return Collections.emptyList();
+        } catch (SAXException e) {
+            LOGGER.log(Level.WARNING, "Couldn't read the entries of " + file, e);
+            return Collections.emptyList();
+        }
+
+        for (SimpleClearCaseChangeLogEntry entry : ret) {
+            entry.setParent(this);
+        }
+        return ret;
     }
 }
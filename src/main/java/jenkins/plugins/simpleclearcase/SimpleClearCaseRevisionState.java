@@ -24,8 +24,11 @@
 
 package jenkins.plugins.simpleclearcase;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 
 import hudson.model.Action;
 import hudson.scm.SCMRevisionState;
@@ -38,6 +41,10 @@ import hudson.scm.SCMRevisionState;
 public class SimpleClearCaseRevisionState extends SCMRevisionState implements Action {
     private LoadRuleDateMap map;
     private int buildNumber;
+    // the event ids of the events at the dates of map, null for states of earlier versions
+    private String[] boundaryEventIds;
+    // the number of entries in the changelog of the build, null for states of earlier versions
+    private Integer changeLogSize;
 
     public SimpleClearCaseRevisionState(LoadRuleDateMap map, int buildNumber) {
         this.map = map;
@@ -68,4 +75,30 @@ public class SimpleClearCaseRevisionState extends SCMRevisionState implements Ac
     public int getBuildNumber() {
         return buildNumber;
     }
+
+    /**
+     * @return the event ids of the events at the dates of the load rules, null if unknown
+     */
+    public Set<String> getBoundaryEventIds() {
+        if (boundaryEventIds == null) {
+            return null;
+        }
+        return new HashSet<String>(Arrays.asList(boundaryEventIds));
+    }
+
+    public void setBoundaryEventIds(Set<String> boundaryEventIds) {
+        this.boundaryEventIds = boundaryEventIds.toArray(new String[boundaryEventIds.size()]);
+    }
+
+    /**
+     * @return the number of entries in the changelog of the build, 
+     *         SimpleClearCaseChangeLogSet.UNKNOWN_SIZE if unknown
+     */
+    public int getChangeLogSize() {
+        return (changeLogSize != null) ? changeLogSize : SimpleClearCaseChangeLogSet.UNKNOWN_SIZE;
+    }
+
+    public void setChangeLogSize(int changeLogSize) {
+        this.changeLogSize = changeLogSize;
+    }
 }
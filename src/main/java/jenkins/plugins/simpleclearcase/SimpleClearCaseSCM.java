@@ -32,6 +32,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import jenkins.plugins.simpleclearcase.SimpleClearCaseChangeLogSet;
 import jenkins.plugins.simpleclearcase.util.DateUtil;
@@ -39,14 +40,20 @@ import jenkins.plugins.simpleclearcase.util.DebugHelper;
 import jenkins.plugins.simpleclearcase.util.ListUtil;
 import jenkins.plugins.simpleclearcase.util.OsUtil;
 
+import net.sf.json.JSONObject;
+
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
 
 import hudson.AbortException;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.BuildListener;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
 import hudson.model.ModelObject;
 import hudson.model.TaskListener;
 import hudson.model.AbstractBuild;
@@ -98,7 +105,6 @@ public class SimpleClearCaseSCM extends SCM {
     protected PollingResult compareRemoteRevisionWith(AbstractProject<?, ?> project, Launcher launcher,
                                   FilePath workspace, TaskListener listener, SCMRevisionState scmRevisionState)
                                                                 throws IOException, InterruptedException {
-        ClearTool ct = new ClearTool(launcher, listener, workspace, viewname, branch, filter);
         final AbstractBuild<?, ?> lastBuild = project.getLastBuild();
         
         SimpleClearCaseRevisionState baseline = (SimpleClearCaseRevisionState) scmRevisionState;
@@ -112,19 +118,33 @@ public class SimpleClearCaseSCM extends SCM {
         DebugHelper.info(listener, "%s: Baseline LR-mapping from RevisionState is: %s",
                                                        LOG_COMPARE_REMOTE_REVISION_WITH, baselineLRMap);
 
-        // we send baselines LoadRuleDateMap to cleartool to limit the size of
-        // the data fetched from lshistory. To speed up the polling.
         Date since = getSinceDate(project, listener);
-        remoteLRMap = ct.getLatestCommitDates(getLoadRulesAsList(), baselineLRMap, since);
+        remoteLRMap = null;
+
+        if (DESCRIPTOR.getCentralPolling() == true) {
+            // the central poller has the latest events, unless it hasn't followed our load rules 
+            // since our last build
+            remoteLRMap = ClearCasePoller.get().lookup(this, baselineLRMap, since, 
+                                                                    DESCRIPTOR.getCentralPollingMaxAge());
+            DebugHelper.info(listener, "%s: remoteLRMap from the central poller is: %s", 
+                                                       LOG_COMPARE_REMOTE_REVISION_WITH, remoteLRMap);
+        }
+
+        if (remoteLRMap == null) {
+            if (workspace == null) {
+                // polling without workspace, cleartool only needs a node which has the dynamic view
+                launcher = createPollingLauncher(launcher, listener);
+            }
+            ClearTool ct = createClearTool(launcher, listener, workspace, DESCRIPTOR.getPollingTimeout());
+
+            // we send baselines LoadRuleDateMap to cleartool such that it can stop reading 
+            // lshistory as soon as there is an event newer than the baseline. To speed up the polling.
+            remoteLRMap = ct.probeLatestCommitDates(getLoadRulesAsList(), baselineLRMap, since);
+        }
         
         DebugHelper.info(listener, "%s: remoteLRMap is: %s", LOG_COMPARE_REMOTE_REVISION_WITH, remoteLRMap);
         
-        if (baselineLRMap.isEmpty() == true && remoteLRMap.isEmpty() == false) {
-            // if baseline LR map is empty, and remote isn't then there is changes
-            change = PollingResult.Change.SIGNIFICANT;            
-        } else if (baselineLRMap.isBefore(remoteLRMap) == true) {
-            // if baseline has a load rule which its date is before the date of the
-            // remote revision then it means there are changes        
+        if (isChanged(baselineLRMap, remoteLRMap) == true) {
             change = PollingResult.Change.SIGNIFICANT;
         } else {
             // remote isn't newer than baseline
@@ -148,6 +168,57 @@ public class SimpleClearCaseSCM extends SCM {
         return new PollingResult(baseline, remote, change);
     }
 
+    /**
+     * @param baselineLRMap
+     * @param remoteLRMap
+     * @return if remote has changes which baseline doesn't have
+     */
+    static boolean isChanged(LoadRuleDateMap baselineLRMap, LoadRuleDateMap remoteLRMap) {
+        if (baselineLRMap.isEmpty() == true && remoteLRMap.isEmpty() == false) {
+            // if baseline LR map is empty, and remote isn't then there is changes
+            return true;
+        }
+        // if baseline has a load rule which its date is before the date of the
+        // remote revision then it means there are changes        
+        return baselineLRMap.isBefore(remoteLRMap);
+    }
+
+    /**
+     * @param listener
+     * @return a ClearTool polling without workspace, see createPollingLauncher
+     */
+    ClearTool createPollingClearTool(TaskListener listener) throws InterruptedException, IOException {
+        return createClearTool(createPollingLauncher(null, listener), listener, null, 
+                                                                         DESCRIPTOR.getPollingTimeout());
+    }
+
+    /**
+     * @param launcher the launcher Jenkins polls with, on the controller
+     * @param listener
+     * @return a launcher on an online node of the poll node label, if there is a label and such 
+     *         a node, otherwise on the controller
+     */
+    private Launcher createPollingLauncher(Launcher launcher, TaskListener listener) {
+        String pollNodeLabel = DESCRIPTOR.getPollNodeLabel();
+
+        if (pollNodeLabel.length() > 0) {
+            Label label = Hudson.getInstance().getLabel(pollNodeLabel);
+
+            for (Node node : (label != null) ? label.getNodes() : Collections.<Node>emptySet()) {
+                Computer computer = node.toComputer();
+
+                if (computer != null && computer.isOnline() == true) {
+                    DebugHelper.info(listener, "%s: Polling on node %s of label %s", 
+                                     LOG_COMPARE_REMOTE_REVISION_WITH, node.getDisplayName(), pollNodeLabel);
+                    return node.createLauncher(listener);
+                }
+            }
+            DebugHelper.info(listener, "%s: No node of label %s is online, polling on the controller", 
+                                                             LOG_COMPARE_REMOTE_REVISION_WITH, pollNodeLabel);
+        }
+        return (launcher != null) ? launcher : Hudson.getInstance().createLauncher(listener);
+    }
+
     private Date getSinceDate(AbstractProject<?, ?> project, TaskListener listener) {
         AbstractBuild<?, ?> lastBuild = project.getLastBuild();
         if (lastBuild == null) {
@@ -164,33 +235,50 @@ public class SimpleClearCaseSCM extends SCM {
                     BuildListener listener, File changelogFile) throws IOException, InterruptedException {
 
         DebugHelper.info(listener, "%s: Starting to 'checkout'", LOG_CHECKOUT);
-        ClearTool ct = new ClearTool(launcher, listener, workspace, viewname,
-                                     branch, filter);
+        ClearTool ct = createClearTool(launcher, listener, workspace, DESCRIPTOR.getCheckoutTimeout());
 
         List<SimpleClearCaseChangeLogEntry> entries;
         LoadRuleDateMap buildLRMap;
+        Set<String> boundaryEventIds;
         
         Date since = getSinceDate(build, listener);
         
         // we don't have a latest commit date as we haven't tracked the
         // changelog due to the lack of previous builds.
         if (build.getPreviousBuild() != null && build.getPreviousBuild().getAction(SimpleClearCaseRevisionState.class) != null) {
-            LoadRuleDateMap previousBuildLRMap  = build.getPreviousBuild().getAction(SimpleClearCaseRevisionState.class).getLoadRuleDateMap();
+            SimpleClearCaseRevisionState previousState = build.getPreviousBuild().getAction(SimpleClearCaseRevisionState.class);
+            LoadRuleDateMap previousBuildLRMap  = previousState.getLoadRuleDateMap();
 
             DebugHelper.info(listener,"%s: Fetched dates from previous builds RevisionState LRMap: %s",
                                                                 LOG_CHECKOUT, previousBuildLRMap);
-            entries = ct.lshistory(getLoadRulesAsList(), previousBuildLRMap, since);
+            // the central poller may have the events already, up to its latest query
+            ClearCasePoller.PolledHistory polled = (DESCRIPTOR.getCentralPolling() == true) 
+                  ? ClearCasePoller.get().getHistory(this, previousBuildLRMap, build.getPreviousBuild().getTime()) : null;
+
+            if (polled != null) {
+                DebugHelper.info(listener, "%s: Got %d entries from the central poller, fetching the " 
+                                      + "remaining since: %s", LOG_CHECKOUT, polled.getEntries().size(), polled.getSince());
+                entries = polled.getEntries();
+                entries.addAll(ct.lshistory(getLoadRulesAsList(), polled.getSince(), since));
+            } else {
+                entries = ct.lshistory(getLoadRulesAsList(), previousBuildLRMap, since);
+            }
 
             // from the entries we just fetched, we build a LR-map for the new revisionState
-            // this needs to happen before we strip the previous LRMapping values from changelog
-            buildLRMap = ListUtil.getLatestCommitDates(entries, getLoadRulesAsList());
+            // this needs to happen before we strip the previous LRMapping values from changelog.
+            // A load rule without new entries keeps its date from the previous build
+            buildLRMap = ListUtil.getLatestCommitDates(entries, getLoadRulesAsList(), previousBuildLRMap);
             DebugHelper.info(listener,"%s: Got latest commit dates for current build buildLRMap: %s",
                              LOG_CHECKOUT, buildLRMap);
+            // a load rule keeping its date keeps the boundary events of the previous build as well
+            boundaryEventIds = ListUtil.getBoundaryEventIds(entries, buildLRMap, getLoadRulesAsList(), 
+                                                      previousBuildLRMap, previousState.getBoundaryEventIds());
             
             // as we have fetched entries with the previous LRMapping we strip them away
             // before writing down to the changelog file
             // we do not invoke removeEntries if there isn't anything to remove
-            if (previousBuildLRMap.isEmpty() == false && ListUtil.removeEntries(entries, previousBuildLRMap, getLoadRulesAsList()) != true) {
+            if (previousBuildLRMap.isEmpty() == false && ListUtil.removeEntries(entries, previousBuildLRMap, 
+                                    getLoadRulesAsList(), previousState.getBoundaryEventIds()) != true) {
                 DebugHelper.error(listener, "%s: wasn't able to remove previousBuildLRMap entries from list", LOG_CHECKOUT);
             }
             
@@ -214,6 +302,7 @@ public class SimpleClearCaseSCM extends SCM {
 
             // from the entries we just fetched, we build a LR-map for the new revisionState
             buildLRMap = ListUtil.getLatestCommitDates(entries, getLoadRulesAsList());
+            boundaryEventIds = ListUtil.getBoundaryEventIds(entries, buildLRMap, getLoadRulesAsList());
         }
 
         // sort the entries according to 'setting'
@@ -223,13 +312,48 @@ public class SimpleClearCaseSCM extends SCM {
         SimpleClearCaseChangeLogSet set = new SimpleClearCaseChangeLogSet(build, entries);
         
         SimpleClearCaseRevisionState buildRevisionState = new SimpleClearCaseRevisionState(buildLRMap, build.getNumber());
+        buildRevisionState.setBoundaryEventIds(boundaryEventIds);
+        buildRevisionState.setChangeLogSize(entries.size());
         build.addAction(buildRevisionState);
         
         DebugHelper.info(listener, "%s: the add Action buildRevState number is: %d, LRMap is: %s", LOG_CHECKOUT, 
                                                     buildRevisionState.getBuildNumber(), buildRevisionState.getLoadRuleDateMap());
         DebugHelper.info(listener, "%s: Added RevisionState in checkout for build", LOG_CHECKOUT);
         
-        return ((SimpleClearCaseChangeLogParser) createChangeLogParser()).writeChangeLog(changelogFile, set, listener);
+        if (((SimpleClearCaseChangeLogParser) createChangeLogParser()).writeChangeLog(changelogFile, set, listener, getLoadRulesAsList()) == false) {
+            return false;
+        }
+
+        // the binary changelog is read instead of the XML one, which is kept for other readers
+        if (DESCRIPTOR.getBinaryChangeLog() == true) {
+            File binaryFile = BinaryChangeLog.getFile(changelogFile);
+            try {
+                BinaryChangeLog.write(binaryFile, entries);
+            } catch (IOException e) {
+                DebugHelper.error(listener, "%s: Couldn't write the binary changelog, the XML changelog will be " 
+                                                           + "read instead, e: %s", LOG_CHECKOUT, e.getMessage());
+                binaryFile.delete();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param budget for how many seconds the ClearTool may execute commands, 0 means no limit
+     * @return a ClearTool for this job, tuned according to the global configuration
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    private ClearTool createClearTool(Launcher launcher, TaskListener listener, FilePath workspace, 
+                                                     int budget) throws InterruptedException, IOException {
+        ClearTool ct = new ClearTool(launcher, listener, workspace, viewname, branch, filter);
+        ct.setCommandTimeout(TimeUnit.SECONDS.toMillis(DESCRIPTOR.getCommandTimeout()));
+        ct.setTimeBudget(TimeUnit.SECONDS.toMillis(budget));
+        ct.setMaxConcurrentLoadRules(DESCRIPTOR.getMaxConcurrentLoadRules());
+        ct.setBatchLoadRules(DESCRIPTOR.getBatchLoadRules());
+        ct.setUseSessions(DESCRIPTOR.getUseSessions());
+        ct.setViewRoot(DESCRIPTOR.getUseViewPaths() ? DESCRIPTOR.getViewRoot() : null);
+        return ct;
     }
 
     private Date getSinceDate(AbstractBuild<?, ?> build, BuildListener listener) {
@@ -239,7 +363,8 @@ public class SimpleClearCaseSCM extends SCM {
 
     @Override
     public boolean requiresWorkspaceForPolling() {
-        return true;
+        // polling only runs cleartool against the dynamic view, the workspace isn't used
+        return DESCRIPTOR.getPollWithoutWorkspace() == false;
     }
 
     @Override
@@ -290,9 +415,165 @@ public class SimpleClearCaseSCM extends SCM {
     }
 
     public static class DescriptorImpl extends SCMDescriptor<SCM> implements ModelObject {
+        public static final int DEFAULT_MAX_CONCURRENT_LOAD_RULES = 1;
+        public static final String DEFAULT_VIEW_ROOT              = "/view";
+        // timeouts in seconds, 0 means no limit
+        public static final int DEFAULT_COMMAND_TIMEOUT           = 0;
+        public static final int DEFAULT_POLLING_TIMEOUT           = 600;
+        public static final int DEFAULT_CHECKOUT_TIMEOUT          = 0;
+        public static final int DEFAULT_VALIDATION_TIMEOUT        = 30;
+        public static final int DEFAULT_CENTRAL_POLLING_INTERVAL  = 60;
+        // the poller runs once a minute, see ClearCasePoller.PollerWork
+        public static final int MIN_CENTRAL_POLLING_INTERVAL      = 60;
+
+        private static final String VALIDATION_VIEW   = "view";
+        private static final String VALIDATION_PATH   = "path";
+        private static final String VALIDATION_BRANCH = "branch";
+
+        // how many load rules we fetch lshistory for at the same time, shared by all jobs
+        private int maxConcurrentLoadRules = DEFAULT_MAX_CONCURRENT_LOAD_RULES;
+        // if all load rules are fetched through one setview invocation
+        private boolean batchLoadRules;
+        // if commands are executed through warm cleartool sessions
+        private boolean useSessions;
+        // if commands refer to view-extended paths below viewRoot instead of using setview
+        private boolean useViewPaths;
+        private String viewRoot = DEFAULT_VIEW_ROOT;
+        // for how long each cleartool command may run
+        private int commandTimeout = DEFAULT_COMMAND_TIMEOUT;
+        // for how long all cleartool commands of a poll, a checkout or a validation may run
+        private int pollingTimeout = DEFAULT_POLLING_TIMEOUT;
+        private int checkoutTimeout = DEFAULT_CHECKOUT_TIMEOUT;
+        private int validationTimeout = DEFAULT_VALIDATION_TIMEOUT;
+        // if polling runs on the controller, or a node of pollNodeLabel, instead of in a workspace
+        private boolean pollWithoutWorkspace;
+        private String pollNodeLabel = "";
+        // if the jobs are polled together by the ClearCasePoller, and how often
+        private boolean centralPolling;
+        private int centralPollingInterval = DEFAULT_CENTRAL_POLLING_INTERVAL;
+        // if checkout writes a binary changelog next to the XML one
+        private boolean binaryChangeLog;
 
         protected DescriptorImpl() {
             super(null);
+            load();
+        }
+
+        @Override
+        public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+            maxConcurrentLoadRules = Math.max(1, json.optInt("maxConcurrentLoadRules", 
+                                                                DEFAULT_MAX_CONCURRENT_LOAD_RULES));
+            batchLoadRules = json.optBoolean("batchLoadRules");
+            useSessions = json.optBoolean("useSessions");
+            useViewPaths = json.optBoolean("useViewPaths");
+            viewRoot = json.optString("viewRoot", DEFAULT_VIEW_ROOT).trim();
+
+            if (viewRoot.isEmpty()) {
+                viewRoot = DEFAULT_VIEW_ROOT;
+            }
+            commandTimeout = Math.max(0, json.optInt("commandTimeout", DEFAULT_COMMAND_TIMEOUT));
+            pollingTimeout = Math.max(0, json.optInt("pollingTimeout", DEFAULT_POLLING_TIMEOUT));
+            checkoutTimeout = Math.max(0, json.optInt("checkoutTimeout", DEFAULT_CHECKOUT_TIMEOUT));
+            validationTimeout = Math.max(0, json.optInt("validationTimeout", DEFAULT_VALIDATION_TIMEOUT));
+            pollWithoutWorkspace = json.optBoolean("pollWithoutWorkspace");
+            pollNodeLabel = json.optString("pollNodeLabel", "").trim();
+            centralPolling = json.optBoolean("centralPolling");
+            centralPollingInterval = Math.max(MIN_CENTRAL_POLLING_INTERVAL, json.optInt("centralPollingInterval", 
+                                                                          DEFAULT_CENTRAL_POLLING_INTERVAL));
+            binaryChangeLog = json.optBoolean("binaryChangeLog");
+
+            if (useSessions == false) {
+                // no need to keep the cleartool processes around
+                ClearToolSessionPool.get().invalidate();
+            }
+            save();
+            return true;
+        }
+
+        public int getMaxConcurrentLoadRules() {
+            return maxConcurrentLoadRules;
+        }
+
+        public boolean getBatchLoadRules() {
+            return batchLoadRules;
+        }
+
+        public boolean getUseSessions() {
+            return useSessions;
+        }
+
+        public boolean getUseViewPaths() {
+            return useViewPaths;
+        }
+
+        public String getViewRoot() {
+            return viewRoot;
+        }
+
+        public int getCommandTimeout() {
+            return commandTimeout;
+        }
+
+        public int getPollingTimeout() {
+            return pollingTimeout;
+        }
+
+        public int getCheckoutTimeout() {
+            return checkoutTimeout;
+        }
+
+        public int getValidationTimeout() {
+            return validationTimeout;
+        }
+
+        public boolean getPollWithoutWorkspace() {
+            return pollWithoutWorkspace;
+        }
+
+        /**
+         * @return the label of the nodes to poll on without workspace, empty to poll on the controller
+         */
+        public String getPollNodeLabel() {
+            // configurations saved by earlier versions lack the label
+            return (pollNodeLabel != null) ? pollNodeLabel : "";
+        }
+
+        public boolean getCentralPolling() {
+            return centralPolling;
+        }
+
+        /**
+         * @return the number of seconds between the queries of the central poller
+         */
+        public int getCentralPollingInterval() {
+            // configurations saved by earlier versions lack the interval, or may have a shorter one
+            return (centralPollingInterval > 0) ? Math.max(centralPollingInterval, MIN_CENTRAL_POLLING_INTERVAL) 
+                                                : DEFAULT_CENTRAL_POLLING_INTERVAL;
+        }
+
+        /**
+         * @return the number of milliseconds the events of the central poller answer the polling 
+         *         of a job, which allows for one late query
+         */
+        public long getCentralPollingMaxAge() {
+            return TimeUnit.SECONDS.toMillis(2 * getCentralPollingInterval());
+        }
+
+        public boolean getBinaryChangeLog() {
+            return binaryChangeLog;
+        }
+
+        /**
+         * @return a ClearTool for validating the configuration, tuned according to the global configuration
+         */
+        private ClearTool createClearTool(String viewname, String branch) throws InterruptedException, IOException {
+            Launcher launcher = Hudson.getInstance().createLauncher(TaskListener.NULL);
+            ClearTool ct = new ClearTool(launcher, null, null, viewname, branch, false);
+            ct.setUseSessions(useSessions);
+            ct.setViewRoot(useViewPaths ? viewRoot : null);
+            ct.setCommandTimeout(TimeUnit.SECONDS.toMillis(commandTimeout));
+            ct.setTimeBudget(TimeUnit.SECONDS.toMillis(validationTimeout));
+            return ct;
         }
 
         /* (non-Javadoc)
@@ -303,6 +584,18 @@ public class SimpleClearCaseSCM extends SCM {
             return Messages.simpleclearcase_DisplayName();
         }
 
+        public FormValidation doCheckCentralPollingInterval(@QueryParameter String value) {
+            try {
+                if (Integer.parseInt(value.trim()) >= MIN_CENTRAL_POLLING_INTERVAL) {
+                    return FormValidation.ok();
+                }
+            } catch (NumberFormatException e) {
+                // not a number of seconds either
+            }
+            return FormValidation.error(Messages.simpleclearcase_centralPollingInterval_minimum(
+                                                                           MIN_CENTRAL_POLLING_INTERVAL));
+        }
+
         public FormValidation doCheckViewname(@QueryParameter String value)
                                                                 throws InterruptedException, IOException {
             if (isNullOrEmpty(value)) {
@@ -313,11 +606,12 @@ public class SimpleClearCaseSCM extends SCM {
                 return FormValidation.error(Messages.simpleclearcase_viewname_whitespace());
             }
 
-            Launcher launcher = Hudson.getInstance().createLauncher(TaskListener.NULL);
-            ClearTool ct = new ClearTool(launcher, null, null, value, null, false);
-
-            if (ct.doesViewExist(value) == false) {
-                return FormValidation.error(Messages.simpleclearcase_viewname_doesntexist());
+            try {
+                if (doesViewExist(value) == false) {
+                    return FormValidation.error(Messages.simpleclearcase_viewname_doesntexist());
+                }
+            } catch (ClearToolTimeoutException e) {
+                return FormValidation.warning(Messages.simpleclearcase_validation_timedout());
             }
             return FormValidation.ok();
         }
@@ -359,12 +653,13 @@ public class SimpleClearCaseSCM extends SCM {
             }
             
             // check if paths actually exists, as its the heaviest task its last
-            Launcher launcher = Hudson.getInstance().createLauncher(TaskListener.NULL);
-            ClearTool ct = new ClearTool(launcher, null, null, viewname, null, false);
-
             for (String lr : splittedRules) {
-                if (ct.doesClearCasePathExist(lr) == false) {
-                    return FormValidation.error(Messages.simpleclearcase_loadRules_pathdoesnotexist() + lr);
+                try {
+                    if (doesClearCasePathExist(viewname, lr) == false) {
+                        return FormValidation.error(Messages.simpleclearcase_loadRules_pathdoesnotexist() + lr);
+                    }
+                } catch (ClearToolTimeoutException e) {
+                    return FormValidation.warning(Messages.simpleclearcase_validation_timedout());
                 }
             }
             return FormValidation.ok();
@@ -388,20 +683,68 @@ public class SimpleClearCaseSCM extends SCM {
                 return FormValidation.error(Messages.simpleclearcase_branch_whitespace());
             }
 
-            Launcher launcher = Hudson.getInstance().createLauncher(TaskListener.NULL);
-            // creating a CT with viewname, and value as branch
-            ClearTool ct = new ClearTool(launcher, null, null, viewname, value, false);
-            
             // check to see if ClearTool returns any error on
             for (String lr : splitLoadRules(loadRules)) {
-                if (ct.doesClearCaseBranchExist(lr) == false) {
-                    return FormValidation.error(Messages.simpleclearcase_branch_missingbranchforpath() + lr);
+                try {
+                    if (doesClearCaseBranchExist(viewname, value, lr) == false) {
+                        return FormValidation.error(Messages.simpleclearcase_branch_missingbranchforpath() + lr);
+                    }
+                } catch (ClearToolTimeoutException e) {
+                    return FormValidation.warning(Messages.simpleclearcase_validation_timedout());
                 }
             }
 
             return FormValidation.ok();   
         }
         
+        /**
+         * Forgets the cached validation results, such that views, paths and branches which 
+         * were just created in ClearCase are validated again.
+         */
+        public FormValidation doClearValidationCache() {
+            Hudson.getInstance().checkPermission(Hudson.ADMINISTER);
+            ClearToolValidationCache.get().invalidate();
+            return FormValidation.ok(Messages.simpleclearcase_validationcache_cleared());
+        }
+
+        // the validation probes below are cached, as the form validates on every page load.
+        // A probe which timed out throws ClearToolTimeoutException and caches nothing, as it 
+        // couldn't tell whether the view, path or branch exists
+        private boolean doesViewExist(String viewname) throws InterruptedException, IOException {
+            String key = ClearToolValidationCache.key(VALIDATION_VIEW, viewname);
+            Boolean ret = ClearToolValidationCache.get().get(key);
+
+            if (ret == null) {
+                ret = createClearTool(viewname, null).doesViewExist(viewname);
+                ClearToolValidationCache.get().put(key, ret);
+            }
+            return ret;
+        }
+
+        private boolean doesClearCasePathExist(String viewname, String path) 
+                                                                throws InterruptedException, IOException {
+            String key = ClearToolValidationCache.key(VALIDATION_PATH, viewname, path);
+            Boolean ret = ClearToolValidationCache.get().get(key);
+
+            if (ret == null) {
+                ret = createClearTool(viewname, null).doesClearCasePathExist(path);
+                ClearToolValidationCache.get().put(key, ret);
+            }
+            return ret;
+        }
+
+        private boolean doesClearCaseBranchExist(String viewname, String branch, String path) 
+                                                                throws InterruptedException, IOException {
+            String key = ClearToolValidationCache.key(VALIDATION_BRANCH, viewname, branch, path);
+            Boolean ret = ClearToolValidationCache.get().get(key);
+
+            if (ret == null) {
+                ret = createClearTool(viewname, branch).doesClearCaseBranchExist(path);
+                ClearToolValidationCache.get().put(key, ret);
+            }
+            return ret;
+        }
+
         // returns true if any of the strings are null or empty
         private boolean isNullOrEmpty(String... values) {
             for (String s : values) {
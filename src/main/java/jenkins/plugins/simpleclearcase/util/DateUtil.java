@@ -35,8 +35,14 @@ import jenkins.plugins.simpleclearcase.LoadRuleDateMap;
 import jenkins.plugins.simpleclearcase.SimpleClearCaseChangeLogEntry;
 
 public class DateUtil {
-    private final String DATETIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ssZ";
-    private SimpleDateFormat dateFormatter = new SimpleDateFormat(DATETIME_FORMAT, new Locale(PropUtils.getLocale()));
+    private static final String DATETIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ssZ";
+    // SimpleDateFormat isn't thread-safe, hence each thread has a formatter of its own
+    private static final ThreadLocal<SimpleDateFormat> dateFormatter = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat(DATETIME_FORMAT, new Locale(PropUtils.getLocale()));
+        }
+    };
     
     /**
      * @param entries a list of ChangeLogEntry
@@ -61,14 +67,14 @@ public class DateUtil {
     }
 
     public String formatDate(Date date) {
-        return dateFormatter.format(date);
+        return dateFormatter.get().format(date);
     }
 
     public Date parseDate(String date) {
         Date ret;
 
         try {
-            ret = dateFormatter.parse(date);
+            ret = dateFormatter.get().parse(date);
         } catch (ParseException e) {
             ret = null;
         }
@@ -1,15 +1,21 @@
 package jenkins.plugins.simpleclearcase.util;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import jenkins.plugins.simpleclearcase.LoadRuleDateMap;
 import jenkins.plugins.simpleclearcase.SimpleClearCaseChangeLogEntry;
 
 public class ListUtil {
+    // marks a load rule without date
+    private static final long NO_DATE = Long.MIN_VALUE;
 
-    
     /**
      * @param entries
      * @param loadRuleMap
@@ -19,25 +25,67 @@ public class ListUtil {
      */
     public static boolean removeEntries(List<SimpleClearCaseChangeLogEntry> entries, 
                                                             LoadRuleDateMap loadRuleMap, List<String> loadRules) {
-        List<SimpleClearCaseChangeLogEntry> entriesToRemove = new ArrayList<SimpleClearCaseChangeLogEntry>();
+        return removeEntries(entries, loadRuleMap, loadRules, null);
+    }
+
+    /**
+     * Removes the entries of the previous build, which are listed again as lshistory lists the 
+     * events at or after the date of the previous build. An entry is removed if its event id is 
+     * one of the boundary event ids of the previous build. If there aren't any boundary event ids, 
+     * or the entry has no event id, the entry is removed if its date is the date of a load rule 
+     * prefixing any of its paths.
+     * 
+     * @param entries
+     * @param loadRuleMap
+     * @param loadRules 
+     * @param boundaryEventIds the event ids of the previous build, see getBoundaryEventIds, may be null
+     * @return true if any entry was removed
+     */
+    public static boolean removeEntries(List<SimpleClearCaseChangeLogEntry> entries, LoadRuleDateMap loadRuleMap, 
+                                               List<String> loadRules, Set<String> boundaryEventIds) {
+        LoadRuleIndex index = new LoadRuleIndex(loadRules);
+        long[] builtTimes = new long[index.size()];
+
+        for (int i = 0; i < index.size(); i++) {
+            Date builtTime = loadRuleMap.getBuiltTime(index.getLoadRule(i));
+            builtTimes[i] = (builtTime != null) ? builtTime.getTime() : NO_DATE;
+        }
+
+        // entries don't override equals, hence an identity set keeps removeAll linear
+        Set<SimpleClearCaseChangeLogEntry> entriesToRemove = 
+                Collections.newSetFromMap(new IdentityHashMap<SimpleClearCaseChangeLogEntry, Boolean>());
+        BitSet matches = new BitSet(index.size());
 
         for (SimpleClearCaseChangeLogEntry entry : entries) {
+            if (boundaryEventIds != null && entry.getEventId() != null) {
+                // the event id tells apart the events sharing the date of the previous build
+                if (boundaryEventIds.contains(entry.getEventId()) == true) {
+                    entriesToRemove.add(entry);
+                }
+                continue;
+            }
+
             if (entry.getDate() == null) {
                 // unset date means there isn't any duplication
                 continue;
             }
-            
-            //for each entry we have to compare against each load rule
-            for (String loadRule : loadRules) {
-                Date builtTime = loadRuleMap.getBuiltTime(loadRule);
-                if (entry.containsPathWithPrefix(loadRule) &&
-                        builtTime != null &&
-                        entry.getDate().compareTo(builtTime) == 0) {
+            long date = entry.getDate().getTime();
+
+            //the load rules prefixing any path of the entry
+            matches.clear();
+            index.match(entry, matches);
+
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                if (builtTimes[i] == date) {
                     entriesToRemove.add(entry); //we add the entry we want to remove later on
                     break; //found a match for entry, then we skip comparing against other load rules
                 }
             }
         }
+
+        if (entriesToRemove.isEmpty() == true) {
+            return false;
+        }
         return entries.removeAll(entriesToRemove);
     }
 
@@ -47,29 +95,139 @@ public class ListUtil {
      *         specific load rule
      */
     public static LoadRuleDateMap getLatestCommitDates(List<SimpleClearCaseChangeLogEntry> entries, List<String> loadRules) {
+        LoadRuleIndex index = new LoadRuleIndex(loadRules);
+        long[] latest = new long[index.size()];
+        Arrays.fill(latest, NO_DATE);
+
+        // each entry updates the latest date of the load rules prefixing any of its paths
+        BitSet matches = new BitSet(index.size());
+
+        for (SimpleClearCaseChangeLogEntry entry : entries) {
+            if (entry.getDate() == null) {
+                continue;
+            }
+            long date = entry.getDate().getTime();
+
+            matches.clear();
+            index.match(entry, matches);
+
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                latest[i] = Math.max(latest[i], date);
+            }
+        }
+
         LoadRuleDateMap ret = new LoadRuleDateMap();
+        for (String lr : loadRules) {
+            long date = latest[index.indexOf(lr)];
+            ret.setBuildTime(lr, (date != NO_DATE) ? new Date(date) : null);
+        }
+        return ret;
+    }
+
+    /**
+     * The dates of the build fetching entries since previous. As lshistory lists the events at or 
+     * after the dates of previous, the event at the date of a load rule usually is listed again, 
+     * but not if it has been removed since, or if the entries since previous were partly taken 
+     * from elsewhere, such as the central poller, see ClearCasePoller.getHistory. A load rule 
+     * without newer entries hence keeps its date from previous, instead of losing it.
+     * 
+     * @param entries the entries fetched since previous
+     * @param loadRules
+     * @param previous the latest commit dates of the previous build
+     * @return a LoadRuleDateMap which maps each load rule against the latest of its commit date 
+     *         in entries and its date in previous
+     */
+    public static LoadRuleDateMap getLatestCommitDates(List<SimpleClearCaseChangeLogEntry> entries, 
+                                                       List<String> loadRules, LoadRuleDateMap previous) {
+        LoadRuleDateMap ret = getLatestCommitDates(entries, loadRules);
 
         for (String lr : loadRules) {
-            ret.setBuildTime(lr, getLatestCommitDate(entries, lr));
+            Date before = previous.getBuiltTime(lr);
+            Date latest = ret.getBuiltTime(lr);
+
+            if (before != null && (latest == null || before.after(latest) == true)) {
+                ret.setBuildTime(lr, before);
+            }
         }
         return ret;
     }
 
     /**
-     * @param loadRule
-     * @return the latest commit date from all of the entries who are fetched from load rule 'loadrule'
+     * The boundary events of a load rule are the events at its date, which the next lshistory 
+     * lists again. Only their event ids are needed to tell them apart from new events at the same 
+     * date, see removeEntries.
+     * 
+     * @param entries
+     * @param loadRuleMap the dates of the load rules
+     * @param loadRules
+     * @return the event ids of the entries at the date of any load rule prefixing their paths
+     */
+    public static Set<String> getBoundaryEventIds(List<SimpleClearCaseChangeLogEntry> entries, 
+                                                            LoadRuleDateMap loadRuleMap, List<String> loadRules) {
+        return getBoundaryEventIds(entries, loadRuleMap, loadRules, null, null);
+    }
+
+    /**
+     * A load rule without new events keeps its date from the previous build, see 
+     * getLatestCommitDates, but its boundary events aren't among the entries if these were taken 
+     * from the central poller. As the next lshistory lists them again, the boundary event ids of 
+     * the previous build are kept for such a load rule. They aren't kept by load rule, hence all 
+     * of them are kept, the ones of other load rules are older than the dates of these and 
+     * aren't listed again.
+     * 
+     * @param entries
+     * @param loadRuleMap the dates of the load rules
+     * @param loadRules
+     * @param previous the dates of the load rules in the previous build, may be null
+     * @param previousIds the boundary event ids of the previous build, may be null
+     * @return the event ids of the entries at the date of any load rule prefixing their paths, 
+     *         and previousIds if the date of any load rule is from previous without such entries
      */
-    private static Date getLatestCommitDate(List<SimpleClearCaseChangeLogEntry> entries, String loadRule) {
-        List<SimpleClearCaseChangeLogEntry> prefixedEntries = 
-                new ArrayList<SimpleClearCaseChangeLogEntry>();
+    public static Set<String> getBoundaryEventIds(List<SimpleClearCaseChangeLogEntry> entries, 
+                          LoadRuleDateMap loadRuleMap, List<String> loadRules, LoadRuleDateMap previous, 
+                                                                              Set<String> previousIds) {
+        LoadRuleIndex index = new LoadRuleIndex(loadRules);
+        long[] dates = new long[index.size()];
+
+        for (int i = 0; i < index.size(); i++) {
+            Date date = loadRuleMap.getBuiltTime(index.getLoadRule(i));
+            dates[i] = (date != null) ? date.getTime() : NO_DATE;
+        }
+
+        Set<String> ret = new HashSet<String>();
+        BitSet matches = new BitSet(index.size());
+        // the load rules having any boundary event among the entries
+        BitSet found = new BitSet(index.size());
 
         for (SimpleClearCaseChangeLogEntry entry : entries) {
-            if (entry.containsPathWithPrefix(loadRule) == true) {
-                prefixedEntries.add(entry);
+            if (entry.getDate() == null || entry.getEventId() == null) {
+                continue;
+            }
+            long date = entry.getDate().getTime();
+
+            matches.clear();
+            index.match(entry, matches);
+
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                if (dates[i] == date) {
+                    ret.add(entry.getEventId());
+                    found.set(i);
+                }
             }
         }
-        return DateUtil.getLatestDate(prefixedEntries);
-    }
 
+        if (previous == null || previousIds == null) {
+            return ret;
+        }
+
+        for (int i = 0; i < index.size(); i++) {
+            Date before = previous.getBuiltTime(index.getLoadRule(i));
 
+            if (found.get(i) == false && before != null && before.getTime() == dates[i]) {
+                ret.addAll(previousIds);
+                break;
+            }
+        }
+        return ret;
+    }
 }
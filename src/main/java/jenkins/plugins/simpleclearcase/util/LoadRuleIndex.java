@@ -0,0 +1,151 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jenkins.plugins.simpleclearcase.SimpleClearCaseChangeLogEntry;
+
+/**
+ * Finds the load rules prefixing a path, with a binary search instead of comparing the path 
+ * with each load rule. 
+ * 
+ * The load rules are sorted and each one refers to the longest other load rule prefixing it, 
+ * its parent. The load rules prefixing a path are all prefixing the greatest load rule not 
+ * greater than the path, hence they are found by following the parents from that load rule.
+ */
+public final class LoadRuleIndex {
+    private static final int NO_PARENT = -1;
+
+    private final String[] loadRules;
+    private final int[] parents;
+    private final Map<String, Integer> indexes;
+
+    /**
+     * @param loadRules may contain duplicates
+     */
+    public LoadRuleIndex(List<String> loadRules) {
+        String[] sorted = loadRules.toArray(new String[loadRules.size()]);
+        Arrays.sort(sorted);
+
+        indexes = new HashMap<String, Integer>();
+        int n = 0;
+        for (String lr : sorted) {
+            if (indexes.containsKey(lr) == false) {
+                indexes.put(lr, n);
+                sorted[n++] = lr;
+            }
+        }
+        this.loadRules = Arrays.copyOf(sorted, n);
+        this.parents = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            parents[i] = findPrefix(i - 1, this.loadRules[i]);
+        }
+    }
+
+    /**
+     * @return the number of distinct load rules
+     */
+    public int size() {
+        return loadRules.length;
+    }
+
+    /**
+     * @param loadRule
+     * @return the index of loadRule, -1 if it isn't a load rule of the index
+     */
+    public int indexOf(String loadRule) {
+        Integer ret = indexes.get(loadRule);
+        return (ret != null) ? ret : -1;
+    }
+
+    public String getLoadRule(int index) {
+        return loadRules[index];
+    }
+
+    /**
+     * @param index
+     * @return the index of the longest other load rule prefixing the load rule at index, -1 if 
+     *         there is none
+     */
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    /**
+     * Sets the indexes of the load rules prefixing path in matches.
+     * 
+     * @param path
+     * @param matches
+     */
+    public void match(String path, BitSet matches) {
+        for (int i = longestPrefix(path); i != NO_PARENT; i = parents[i]) {
+            matches.set(i);
+        }
+    }
+
+    /**
+     * @param path
+     * @return the index of the longest load rule prefixing path, -1 if there is none
+     */
+    public int longestPrefix(String path) {
+        int i = Arrays.binarySearch(loadRules, path);
+
+        // when not found binarySearch returns (-(insertion point) - 1), the greatest load rule 
+        // less than path is the one before the insertion point
+        return findPrefix((i >= 0) ? i : -i - 2, path);
+    }
+
+    /**
+     * Sets the indexes of the load rules prefixing any path of entry in matches.
+     * 
+     * @param entry
+     * @param matches
+     */
+    public void match(SimpleClearCaseChangeLogEntry entry, BitSet matches) {
+        for (String path : entry.getAffectedPaths()) {
+            match(path, matches);
+        }
+    }
+
+    /**
+     * @param from index of a load rule not greater than s, or NO_PARENT 
+     * @param s
+     * @return the index of the longest load rule prefixing s, NO_PARENT if there is none
+     */
+    private int findPrefix(int from, String s) {
+        int i = from;
+
+        while (i != NO_PARENT && s.startsWith(loadRules[i]) == false) {
+            i = parents[i];
+        }
+        return i;
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A path stored as a node of a trie shared by all paths, such that the paths of changelog 
+ * entries, which mostly are below the same few load rules, share the storage of their common 
+ * prefixes. Each node holds one segment of the path, including the separator in front of it, 
+ * hence the path is the concatenation of the segments from the root down to the node.
+ * 
+ * Nodes are canonical, there is only one node for a path as long as anything refers to it. The 
+ * trie only refers weakly to its nodes, hence the nodes are collected along with the changelog 
+ * entries referring to them.
+ */
+public final class PathNode {
+    private static final PathNode ROOT = new PathNode(null, "");
+
+    // the value refers to the key, weakly such that the key can be collected
+    private static final Map<PathNode, WeakReference<PathNode>> NODES = 
+                                                       new WeakHashMap<PathNode, WeakReference<PathNode>>();
+
+    private final PathNode parent;
+    private final String name;
+    // the length of the whole path
+    private final int length;
+
+    private PathNode(PathNode parent, String name) {
+        this.parent = parent;
+        this.name   = name;
+        this.length = (parent != null) ? parent.length + name.length() : name.length();
+    }
+
+    /**
+     * @param path
+     * @return the node of path, null if path is null
+     */
+    public static PathNode get(String path) {
+        if (path == null) {
+            return null;
+        }
+        PathNode node = ROOT;
+        int start = 0;
+
+        for (int i = 1; i <= path.length(); i++) {
+            if (i == path.length() || isSeparator(path.charAt(i))) {
+                node = node.getChild(path.substring(start, i));
+                start = i;
+            }
+        }
+        return node;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '\\';
+    }
+
+    private PathNode getChild(String segment) {
+        PathNode key = new PathNode(this, segment);
+
+        synchronized (NODES) {
+            WeakReference<PathNode> ref = NODES.get(key);
+            PathNode ret = (ref != null) ? ref.get() : null;
+
+            if (ret == null) {
+                ret = new PathNode(this, StringPool.getDefault().intern(segment));
+                NODES.put(ret, new WeakReference<PathNode>(ret));
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * @return the node of the path without its last segment, null for the empty path
+     */
+    public PathNode getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the last segment of the path, including the separator in front of it
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the length of the path
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Same as toString().startsWith(prefix), without creating the string.
+     * 
+     * @param prefix
+     * @return true if the path starts with prefix
+     */
+    public boolean startsWith(String prefix) {
+        int n = prefix.length();
+
+        if (n > length) {
+            return false;
+        }
+        // the node whose segment holds the end of prefix
+        PathNode node = this;
+        while (node.parent != null && node.parent.length >= n) {
+            node = node.parent;
+        }
+
+        int start = node.length - node.name.length();
+        if (prefix.regionMatches(start, node.name, 0, n - start) == false) {
+            return false;
+        }
+
+        for (node = node.parent; node != null; node = node.parent) {
+            if (prefix.regionMatches(node.length - node.name.length(), node.name, 0, node.name.length()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PathNode == false) {
+            return false;
+        }
+        // as nodes are canonical the parents are compared by identity
+        PathNode other = (PathNode) o;
+        return parent == other.parent && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(parent) * 31 + name.hashCode();
+    }
+
+    /**
+     * @return the path
+     */
+    @Override
+    public String toString() {
+        char[] ret = new char[length];
+
+        for (PathNode node = this; node != null; node = node.parent) {
+            node.name.getChars(0, node.name.length(), ret, node.length - node.name.length());
+        }
+        return new String(ret);
+    }
+}
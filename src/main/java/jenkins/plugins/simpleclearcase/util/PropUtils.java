@@ -35,6 +35,17 @@ public class PropUtils {
 	private static final String QUIET_PERIOD                      = "QuietPeriod";
 	private static final String LSHISTORY_LAST_NUM_EVENTS_VALUE   = "LshistoryLastNumEventsValue";
 	private static final String FIRST_FETCH_MAX_CHANGELOG_ENTRIES = "FirstFetchMaximumChangelogEntries";
+	private static final String MAX_SESSIONS_PER_VIEW             = "MaxSessionsPerView";
+	private static final String SESSION_IDLE_TIMEOUT_MINUTES      = "SessionIdleTimeoutMinutes";
+	private static final String VALIDATION_CACHE_MAX_ENTRIES      = "ValidationCacheMaxEntries";
+	private static final String VALIDATION_CACHE_TIMEOUT_SECONDS  = "ValidationCacheTimeoutSeconds";
+	private static final String LSHISTORY_CACHE_MAX_ENTRIES       = "LshistoryCacheMaxEntries";
+	private static final String LSHISTORY_CACHE_TIMEOUT_SECONDS   = "LshistoryCacheTimeoutSeconds";
+	private static final String CHANGELOG_INDENT                  = "ChangeLogIndent";
+	private static final String CHANGELOG_SCHEMA_VERSION          = "ChangeLogSchemaVersion";
+	private static final String CHANGELOG_COMPRESS                = "ChangeLogCompress";
+	private static final String CHANGELOG_CACHE_MAX_ENTRIES       = "ChangeLogCacheMaxEntries";
+	private static final String CENTRAL_POLLING_HISTORY_MINUTES   = "CentralPollingHistoryMinutes";
 	
 	public static String getLocale() {
 		return ResourceBundleHolder.get(SimpleClearCaseSCM.class).format(LOCALE);
@@ -55,4 +66,48 @@ public class PropUtils {
 	public static int getMaxEntriesFromChangeLog() {
 	    return Integer.parseInt(ResourceBundleHolder.get(SimpleClearCaseSCM.class).format(FIRST_FETCH_MAX_CHANGELOG_ENTRIES));
 	}
+	
+	public static int getMaxSessionsPerView() {
+	    return Integer.parseInt(ResourceBundleHolder.get(ClearTool.class).format(MAX_SESSIONS_PER_VIEW));
+	}
+	
+	public static int getSessionIdleTimeout() {
+	    return Integer.parseInt(ResourceBundleHolder.get(ClearTool.class).format(SESSION_IDLE_TIMEOUT_MINUTES));
+	}
+	
+	public static int getValidationCacheMaxEntries() {
+	    return Integer.parseInt(ResourceBundleHolder.get(ClearTool.class).format(VALIDATION_CACHE_MAX_ENTRIES));
+	}
+	
+	public static int getValidationCacheTimeout() {
+	    return Integer.parseInt(ResourceBundleHolder.get(ClearTool.class).format(VALIDATION_CACHE_TIMEOUT_SECONDS));
+	}
+	
+	public static int getLshistoryCacheMaxEntries() {
+	    return Integer.parseInt(ResourceBundleHolder.get(ClearTool.class).format(LSHISTORY_CACHE_MAX_ENTRIES));
+	}
+	
+	public static int getLshistoryCacheTimeout() {
+	    return Integer.parseInt(ResourceBundleHolder.get(ClearTool.class).format(LSHISTORY_CACHE_TIMEOUT_SECONDS));
+	}
+	
+	public static boolean getChangeLogIndent() {
+	    return Boolean.parseBoolean(ResourceBundleHolder.get(SimpleClearCaseSCM.class).format(CHANGELOG_INDENT));
+	}
+	
+	public static int getChangeLogSchemaVersion() {
+	    return Integer.parseInt(ResourceBundleHolder.get(SimpleClearCaseSCM.class).format(CHANGELOG_SCHEMA_VERSION));
+	}
+	
+	public static boolean getChangeLogCompress() {
+	    return Boolean.parseBoolean(ResourceBundleHolder.get(SimpleClearCaseSCM.class).format(CHANGELOG_COMPRESS));
+	}
+	
+	public static int getChangeLogCacheMaxEntries() {
+	    return Integer.parseInt(ResourceBundleHolder.get(SimpleClearCaseSCM.class).format(CHANGELOG_CACHE_MAX_ENTRIES));
+	}
+	
+	public static int getCentralPollingHistoryMinutes() {
+	    return Integer.parseInt(ResourceBundleHolder.get(SimpleClearCaseSCM.class).format(CENTRAL_POLLING_HISTORY_MINUTES));
+	}
 }
@@ -0,0 +1,202 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase.util;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Decodes and encodes the numeric lshistory timestamps, yyyyMMdd.HHmmss in the local time of 
+ * the JVM, by reading the digits directly instead of going through a SimpleDateFormat. 
+ * 
+ * Events come in bursts sharing the same hour, hence the start of recently decoded hours are 
+ * kept in a small cache and only the minutes and seconds are added for each timestamp. The 
+ * codec is thread-safe and is shared by all parsers.
+ */
+public final class TimestampCodec {
+    public static final String FORMAT = "yyyyMMdd.HHmmss";
+
+    // returned by parse if the timestamp isn't valid
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int LENGTH    = FORMAT.length();
+    private static final int DOT_INDEX = FORMAT.indexOf('.');
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR   = 60 * MILLIS_PER_MINUTE;
+
+    // the number of cached hours, has to be a power of two
+    private static final int CACHE_SIZE = 64;
+
+    private static final TimestampCodec DEFAULT = new TimestampCodec(TimeZone.getDefault());
+
+    private final TimeZone zone;
+    private final AtomicReferenceArray<Hour> cache = new AtomicReferenceArray<Hour>(CACHE_SIZE);
+
+    /**
+     * @param zone the time zone the timestamps are given in
+     */
+    public TimestampCodec(TimeZone zone) {
+        // time zones are mutable, hence we keep a copy of our own
+        this.zone = (TimeZone) zone.clone();
+    }
+
+    /**
+     * @return the codec for the time zone of the JVM, which is what lshistory prints in
+     */
+    public static TimestampCodec getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param s holds the timestamp
+     * @param start index of the first character of the timestamp
+     * @param end index after the last character of the timestamp
+     * @return the timestamp in milliseconds since epoch, INVALID if it couldn't be decoded
+     */
+    public long parse(CharSequence s, int start, int end) {
+        if (end - start != LENGTH || s.charAt(start + DOT_INDEX) != '.') {
+            return INVALID;
+        }
+        int year   = digits(s, start, 4);
+        int month  = digits(s, start + 4, 2);
+        int day    = digits(s, start + 6, 2);
+        int hour   = digits(s, start + 9, 2);
+        int minute = digits(s, start + 11, 2);
+        int second = digits(s, start + 13, 2);
+
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || minute > 59 
+                                                                    || second < 0 || second > 59) {
+            return INVALID;
+        }
+
+        long key = ((year * 100L + month) * 100L + day) * 100L + hour;
+        int slot = (int) (key ^ (key >>> 16)) & (CACHE_SIZE - 1);
+        Hour cached = cache.get(slot);
+
+        if (cached == null || cached.key != key) {
+            long millis = toMillis(year, month, day, hour, 0, 0);
+
+            if (millis == INVALID) {
+                return INVALID;
+            }
+
+            // if the offset changes within the hour, minutes and seconds cannot just be added
+            if (zone.getOffset(millis) != zone.getOffset(millis + MILLIS_PER_HOUR - 1)) {
+                return toMillis(year, month, day, hour, minute, second);
+            }
+            cached = new Hour(key, millis);
+            cache.set(slot, cached);
+        }
+        return cached.millis + minute * MILLIS_PER_MINUTE + second * MILLIS_PER_SECOND;
+    }
+
+    /**
+     * @param timestamp a timestamp formatted as FORMAT
+     * @return the date, null if timestamp couldn't be decoded
+     */
+    public Date parse(String timestamp) {
+        long ret = parse(timestamp, 0, timestamp.length());
+        return (ret != INVALID) ? new Date(ret) : null;
+    }
+
+    /**
+     * @param date
+     * @return the date formatted as FORMAT
+     */
+    public String format(Date date) {
+        Calendar cal = new GregorianCalendar(zone);
+        cal.setTime(date);
+
+        StringBuilder ret = new StringBuilder(LENGTH);
+        appendDigits(ret, cal.get(Calendar.YEAR), 4);
+        appendDigits(ret, cal.get(Calendar.MONTH) + 1, 2);
+        appendDigits(ret, cal.get(Calendar.DAY_OF_MONTH), 2);
+        ret.append('.');
+        appendDigits(ret, cal.get(Calendar.HOUR_OF_DAY), 2);
+        appendDigits(ret, cal.get(Calendar.MINUTE), 2);
+        appendDigits(ret, cal.get(Calendar.SECOND), 2);
+        return ret.toString();
+    }
+
+    /**
+     * @return the number given by the digits, -1 if any character isn't a digit
+     */
+    private static int digits(CharSequence s, int start, int count) {
+        int ret = 0;
+
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            ret = ret * 10 + (c - '0');
+        }
+        return ret;
+    }
+
+    private static void appendDigits(StringBuilder sb, int value, int count) {
+        String digits = Integer.toString(value);
+
+        for (int i = digits.length(); i < count; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+    }
+
+    /**
+     * @return the milliseconds since epoch of the local time, INVALID if it doesn't exist
+     */
+    private long toMillis(int year, int month, int day, int hour, int minute, int second) {
+        Calendar cal = new GregorianCalendar(zone);
+        cal.clear();
+        cal.setLenient(false);
+        cal.set(year, month - 1, day, hour, minute, second);
+
+        try {
+            return cal.getTimeInMillis();
+        } catch (IllegalArgumentException e) {
+            // such as month 13 or February 30
+            return INVALID;
+        }
+    }
+
+    /**
+     * The start of a local hour, immutable such that it can be shared between threads.
+     */
+    private static class Hour {
+        private final long key;
+        private final long millis;
+
+        public Hour(long key, long millis) {
+            this.key = key;
+            this.millis = millis;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class BinaryChangeLogTest {
+
+    private List<SimpleClearCaseChangeLogEntry> createEntries(int n) {
+        List<SimpleClearCaseChangeLogEntry> ret = new ArrayList<SimpleClearCaseChangeLogEntry>();
+
+        for (int i = 0; i < n; i++) {
+            SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(new Date(1000L * i), 
+                    "user" + (i % 3), "/main/dev/" + i, "create version", "checkin", "comment \u00e5 " + i);
+            entry.addPath("/vobs/a/file" + i + ".c");
+            if (i % 2 == 0) {
+                entry.addPath("/vobs/a/common.h");
+                entry.setEventId("oid:" + i);
+            }
+            ret.add(entry);
+        }
+        return ret;
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        List<SimpleClearCaseChangeLogEntry> entries = createEntries(10);
+        entries.add(new SimpleClearCaseChangeLogEntry(null, null, null, null, null, null));
+        File file = File.createTempFile("changelog", ".bin");
+
+        try {
+            BinaryChangeLog.write(file, entries);
+            BinaryChangeLog binary = BinaryChangeLog.open(file);
+
+            Assert.assertEquals(11, binary.size());
+            List<SimpleClearCaseChangeLogEntry> read = binary.getEntries(0, Integer.MAX_VALUE);
+
+            for (int i = 0; i < entries.size(); i++) {
+                SimpleClearCaseChangeLogEntry expected = entries.get(i);
+                SimpleClearCaseChangeLogEntry actual = read.get(i);
+
+                Assert.assertEquals(expected.getDate(), actual.getDate());
+                Assert.assertEquals(expected.getUser(), actual.getUser());
+                Assert.assertEquals(expected.getVersion(), actual.getVersion());
+                Assert.assertEquals(expected.getEventDescription(), actual.getEventDescription());
+                Assert.assertEquals(expected.getOperation(), actual.getOperation());
+                Assert.assertEquals(expected.getEventId(), actual.getEventId());
+                Assert.assertEquals(expected.getComment(), actual.getComment());
+                Assert.assertEquals(expected.getAffectedPaths(), actual.getAffectedPaths());
+            }
+
+            List<SimpleClearCaseChangeLogEntry> page = binary.getEntries(4, 3);
+            Assert.assertEquals(3, page.size());
+            Assert.assertEquals("comment \u00e5 4", page.get(0).getComment());
+            Assert.assertTrue(binary.getEntries(11, 5).isEmpty());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        File file = File.createTempFile("changelog", ".bin");
+
+        try {
+            BinaryChangeLog.write(file, createEntries(10));
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(raf.length() - 1);
+            } finally {
+                raf.close();
+            }
+            BinaryChangeLog.open(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * @param file a binary changelog
+     * @param position where to overwrite
+     * @param value the int to write there
+     */
+    private static void overwrite(File file, long position, int value) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(position);
+            raf.writeInt(value);
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testCorruptedRecord() throws IOException {
+        // the header is 5 ints, a record is a date followed by 8 ints
+        long header = 5 * 4;
+        long record = 8 + 8 * 4;
+        File file = File.createTempFile("changelog", ".bin");
+
+        try {
+            // the user of the second entry, the number of paths of the third, the first path 
+            // of the fourth and a string offset before the previous one, after the 15 paths
+            long[] positions = { header + record + 8, header + 2 * record + 36, header + 3 * record + 32, 
+                                                                  header + 10 * record + 15 * 4 + 2 * 4 };
+            int[] values = { 9999, 100, -1, 0 };
+
+            for (int i = 0; i < positions.length; i++) {
+                BinaryChangeLog.write(file, createEntries(10));
+                BinaryChangeLog.open(file).getEntries(0, Integer.MAX_VALUE);
+                overwrite(file, positions[i], values[i]);
+
+                try {
+                    BinaryChangeLog.open(file);
+                    Assert.fail("Corruption " + i + " is found when opening");
+                } catch (IOException e) {
+                    // expected, the XML changelog is read instead
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadWithoutMapping() throws IOException {
+        File file = File.createTempFile("changelog", ".bin");
+
+        try {
+            BinaryChangeLog.write(file, createEntries(10));
+            BinaryChangeLog binary = BinaryChangeLog.open(file, false);
+
+            Assert.assertEquals(10, binary.size());
+            Assert.assertEquals("comment \u00e5 9", binary.getEntries(9, 1).get(0).getComment());
+            Assert.assertTrue("File isn't held open", file.delete());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testGetFile() {
+        File dir = new File("build");
+        Assert.assertEquals(new File(dir, "changelog.xml.bin"), BinaryChangeLog.getFile(new File(dir, "changelog.xml")));
+        Assert.assertFalse("Changelogs of the same build don't share the binary changelog", 
+                BinaryChangeLog.getFile(new File(dir, "changelog0.xml")).equals(
+                                                     BinaryChangeLog.getFile(new File(dir, "changelog1.xml"))));
+    }
+}
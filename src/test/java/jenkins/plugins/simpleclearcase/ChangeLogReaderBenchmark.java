@@ -0,0 +1,215 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import jenkins.plugins.simpleclearcase.util.DateUtil;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Compares the streaming SimpleClearCaseChangeLogParser.readChangeLog with the DOM based reader 
+ * it replaced, with reading the compact schema, plain and compressed, and with reading the 
+ * BinaryChangeLog, on generated changelogs. It isn't a test, run it with the sizes to compare as 
+ * arguments, for instance:
+ * 
+ *   java -Xmx2g jenkins.plugins.simpleclearcase.ChangeLogReaderBenchmark 10000 100000 1000000
+ * 
+ * For each size it prints the best time and the peak heap of a few runs of each reader.
+ */
+public class ChangeLogReaderBenchmark {
+    private static final int[] DEFAULT_SIZES = { 10000, 100000, 1000000 };
+    private static final int RUNS = 3;
+
+    private interface Reader {
+        List<SimpleClearCaseChangeLogEntry> read(File file) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = DEFAULT_SIZES;
+
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Reader dom = new Reader() {
+            public List<SimpleClearCaseChangeLogEntry> read(File file) throws Exception {
+                InputStream is = new BufferedInputStream(new FileInputStream(file));
+                try {
+                    return readWithDom(is);
+                } finally {
+                    is.close();
+                }
+            }
+        };
+        Reader streaming = new Reader() {
+            public List<SimpleClearCaseChangeLogEntry> read(File file) throws Exception {
+                return new SimpleClearCaseChangeLogParser().readChangeLog(file);
+            }
+        };
+
+        Reader binary = new Reader() {
+            public List<SimpleClearCaseChangeLogEntry> read(File file) throws Exception {
+                return BinaryChangeLog.open(BinaryChangeLog.getFile(file)).getEntries(0, Integer.MAX_VALUE);
+            }
+        };
+
+        for (int size : sizes) {
+            File file = File.createTempFile("changelog", ".xml");
+            File compact = File.createTempFile("changelog", ".xml");
+            File compressed = File.createTempFile("changelog", ".xml");
+            try {
+                writeChangeLog(file, compact, compressed, size);
+                System.out.println(String.format("%d entries, %d kB, compact %d kB, compressed %d kB, binary %d kB", 
+                                     size, file.length() / 1024, compact.length() / 1024, 
+                                     compressed.length() / 1024, BinaryChangeLog.getFile(file).length() / 1024));
+
+                run("  dom       ", dom, file, size);
+                run("  streaming ", streaming, file, size);
+                run("  compact   ", streaming, compact, size);
+                run("  compressed", streaming, compressed, size);
+                run("  binary    ", binary, file, size);
+            } finally {
+                file.delete();
+                compact.delete();
+                compressed.delete();
+                BinaryChangeLog.getFile(file).delete();
+            }
+        }
+    }
+
+    private static void run(String name, Reader reader, File file, int size) throws Exception {
+        long best = Long.MAX_VALUE;
+        long peak = 0;
+
+        for (int i = 0; i < RUNS; i++) {
+            System.gc();
+            resetPeakHeap();
+            long start = System.nanoTime();
+            List<SimpleClearCaseChangeLogEntry> entries;
+
+            try {
+                entries = reader.read(file);
+            } catch (OutOfMemoryError e) {
+                System.out.println(name + ": out of memory");
+                return;
+            }
+            best = Math.min(best, (System.nanoTime() - start) / 1000000);
+            peak = Math.max(peak, getPeakHeap());
+
+            if (entries.size() != size) {
+                throw new IllegalStateException(name + " read " + entries.size() + " entries of " + size);
+            }
+        }
+        System.out.println(String.format("%s: %6d ms, peak heap %6d MB", name, best, peak / (1024 * 1024)));
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    private static long getPeakHeap() {
+        long ret = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                ret += pool.getPeakUsage().getUsed();
+            }
+        }
+        return ret;
+    }
+
+    private static void writeChangeLog(File file, File compact, File compressed, int size) throws Exception {
+        List<SimpleClearCaseChangeLogEntry> entries = new ArrayList<SimpleClearCaseChangeLogEntry>(size);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < size; i++) {
+            SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(new Date(now - i * 1000L), 
+                     "user" + (i % 200), "/vobs/product/src/module" + (i % 50) + "/file" + i + ".c", 
+                     "/main/dev/" + (i % 20), "create version", "checkin", "comment of change " + i);
+            entry.setEventId("oid:" + i);
+            entries.add(entry);
+        }
+        SimpleClearCaseChangeLogParser parser = new SimpleClearCaseChangeLogParser();
+        SimpleClearCaseChangeLogSet set = new SimpleClearCaseChangeLogSet(null, entries);
+        List<String> loadRules = Arrays.asList("/vobs/product/src");
+
+        parser.writeChangeLog(file, set, null, true);
+        parser.writeCompactChangeLog(compact, set, null, loadRules, true, false);
+        parser.writeCompactChangeLog(compressed, set, null, loadRules, true, true);
+        BinaryChangeLog.write(BinaryChangeLog.getFile(file), entries);
+    }
+
+    /**
+     * The reader before the streaming one, which builds a document of the whole changelog.
+     */
+    private static List<SimpleClearCaseChangeLogEntry> readWithDom(InputStream is) throws Exception {
+        List<SimpleClearCaseChangeLogEntry> ret = new ArrayList<SimpleClearCaseChangeLogEntry>();
+        DateUtil dateUtil = new DateUtil();
+
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(is);
+        Element changelog = (Element) doc.getElementsByTagName("changelog").item(0);
+        NodeList entries = changelog.getElementsByTagName("entry");
+
+        for (int i = 0; i < entries.getLength(); i++) {
+            Element elemEntry = (Element) entries.item(i);
+
+            String date = elemEntry.getElementsByTagName("date").item(0).getTextContent().trim();
+            String user = elemEntry.getElementsByTagName("user").item(0).getTextContent().trim();
+            String version = elemEntry.getElementsByTagName("version").item(0).getTextContent().trim();
+            String operation = elemEntry.getElementsByTagName("operation").item(0).getTextContent().trim();
+            String eventDescription = elemEntry.getElementsByTagName("eventdescription").item(0).getTextContent().trim();
+            String comment = elemEntry.getElementsByTagName("comment").item(0).getTextContent().trim();
+
+            SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(
+                           dateUtil.parseDate(date), user, version, eventDescription, operation, comment);
+            NodeList items = elemEntry.getElementsByTagName("item");
+            for (int j = 0; j < items.getLength(); j++) {
+                entry.addPath(items.item(j).getTextContent().trim());
+            }
+            ret.add(entry);
+        }
+        return ret;
+    }
+}
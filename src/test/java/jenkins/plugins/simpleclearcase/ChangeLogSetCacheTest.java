@@ -0,0 +1,163 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import hudson.model.AbstractBuild;
+import hudson.scm.ChangeLogSet;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+public class ChangeLogSetCacheTest {
+
+    /**
+     * A build of no project, each instance stands for the build being loaded from disk again.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static class TestBuild extends AbstractBuild {
+        public TestBuild() {
+            super(null, Calendar.getInstance());
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+
+    private static SimpleClearCaseChangeLogSet createSet() {
+        return new SimpleClearCaseChangeLogSet(null, new File("changelog.xml"), 0);
+    }
+
+    @Test
+    public void testGetPut() {
+        ChangeLogSetCache cache = new ChangeLogSetCache(10);
+        File file = new File("changelog.xml");
+        SimpleClearCaseChangeLogSet set = createSet();
+
+        Assert.assertNull("Nothing is stored yet", cache.get(file, "1", null));
+        cache.put(file, "1", set);
+
+        SimpleClearCaseChangeLogSet cached = cache.get(file, "1", null);
+        Assert.assertNotNull("Changelog is reused", cached);
+        Assert.assertNotSame("A new set is created", set, cached);
+        Assert.assertEquals(0, cached.size());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testSetInMemoryIsNotReused() {
+        ChangeLogSetCache cache = new ChangeLogSetCache(10);
+        File file = new File("changelog.xml");
+        cache.put(file, "1", new SimpleClearCaseChangeLogSet(null, 
+                                                     Collections.<SimpleClearCaseChangeLogEntry>emptyList()));
+
+        Assert.assertNull("Entries in memory aren't kept", cache.get(file, "1", null));
+    }
+
+    @Test
+    public void testReloadedBuild() throws IOException, SAXException {
+        File file = File.createTempFile("changelog", ".xml");
+        File binaryFile = BinaryChangeLog.getFile(file);
+        ChangeLogSetCache cache = ChangeLogSetCache.get();
+        cache.invalidate();
+
+        try {
+            SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(new Date(1000L), "user", 
+                                                  "/main/dev/1", "create version", "checkin", "comment");
+            entry.addPath("/vobs/a/file.c");
+            BinaryChangeLog.write(binaryFile, Collections.singletonList(entry));
+
+            SimpleClearCaseChangeLogParser parser = new SimpleClearCaseChangeLogParser();
+            AbstractBuild<?, ?> build = new TestBuild();
+            ChangeLogSet<?> first = parser.parse(build, file);
+            long hits = cache.getHits();
+
+            // the build loaded from disk again is another instance
+            AbstractBuild<?, ?> reloaded = new TestBuild();
+            ChangeLogSet<?> second = parser.parse(reloaded, file);
+
+            Assert.assertEquals("Changelog of the reloaded build is reused", hits + 1, cache.getHits());
+            Assert.assertNotSame(first, second);
+            Assert.assertSame("Set is of the reloaded build", reloaded, second.build);
+            Assert.assertSame(build, first.build);
+
+            SimpleClearCaseChangeLogEntry read = ((SimpleClearCaseChangeLogSet) second).getEntries().get(0);
+            Assert.assertEquals("comment", read.getComment());
+            Assert.assertSame("Entries belong to the new set", second, read.getParent());
+        } finally {
+            cache.invalidate();
+            binaryFile.delete();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testChangedFile() throws IOException {
+        ChangeLogSetCache cache = new ChangeLogSetCache(10);
+        File file = File.createTempFile("changelog", ".xml");
+        try {
+            String stamp = ChangeLogSetCache.stamp(file);
+            cache.put(file, stamp, createSet());
+
+            FileWriter out = new FileWriter(file);
+            out.write("<changelog/>");
+            out.close();
+
+            Assert.assertFalse("Stamp changes with the file", stamp.equals(ChangeLogSetCache.stamp(file)));
+            Assert.assertNull("Set of the earlier file isn't used", 
+                                                     cache.get(file, ChangeLogSetCache.stamp(file), null));
+            Assert.assertEquals("Set of the earlier file is removed", 0, cache.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSizeLimit() {
+        ChangeLogSetCache cache = new ChangeLogSetCache(2);
+        File a = new File("a.xml");
+        File b = new File("b.xml");
+        cache.put(a, "1", createSet());
+        cache.put(b, "1", createSet());
+
+        // a is used, hence b is the least recently used one
+        cache.get(a, "1", null);
+        cache.put(new File("c.xml"), "1", createSet());
+
+        Assert.assertEquals("Size is limited", 2, cache.size());
+        Assert.assertNotNull("Recently used set is kept", cache.get(a, "1", null));
+        Assert.assertNull("Least recently used set is dropped", cache.get(b, "1", null));
+    }
+}
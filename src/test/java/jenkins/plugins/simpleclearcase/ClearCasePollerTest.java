@@ -0,0 +1,232 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ClearCasePollerTest {
+    private static final long NOW = 100000L;
+
+    private ClearCasePoller poller = new ClearCasePoller(Long.MAX_VALUE);
+    private SimpleClearCaseSCM scmA = new SimpleClearCaseSCM("/vobs/a/x\n/vobs/b", "view", "main", false);
+    private SimpleClearCaseSCM scmB = new SimpleClearCaseSCM("/vobs/a", "view", "main", false);
+
+    private List<String> subscribe(long now) {
+        Map<String, List<SimpleClearCaseSCM>> scms = new HashMap<String, List<SimpleClearCaseSCM>>();
+        scms.put(ClearCasePoller.key(scmA), Arrays.asList(scmA, scmB));
+        return poller.subscribe(scms, now, 60000L);
+    }
+
+    private static SimpleClearCaseChangeLogEntry entry(long date, String path) {
+        return new SimpleClearCaseChangeLogEntry(new Date(date), "etavsam", path, "/main/1", 
+                                                                  "create version", "checkin", "");
+    }
+
+    @Test
+    public void testRouting() {
+        String key = ClearCasePoller.key(scmA);
+        Assert.assertEquals("A new group is queried", Collections.singletonList(key), subscribe(NOW));
+
+        Set<String> changed = poller.record(key, Arrays.asList("/vobs/a", "/vobs/b"), 
+                                 Arrays.asList(entry(NOW + 1000L, "/vobs/a/x/f.c"), 
+                                               entry(NOW + 2000L, "/vobs/a/y/g.c")), NOW + 5000L);
+
+        Assert.assertEquals("Events are routed to all load rules prefixing their paths", 2, changed.size());
+        Assert.assertTrue(changed.contains("/vobs/a/x"));
+        Assert.assertTrue(changed.contains("/vobs/a"));
+        Assert.assertTrue("Group was just queried", subscribe(NOW + 6000L).isEmpty());
+
+        changed = poller.record(key, Arrays.asList("/vobs/a", "/vobs/b"), 
+                                  Arrays.asList(entry(NOW + 1000L, "/vobs/a/x/f.c")), NOW + 7000L);
+        Assert.assertTrue("Events fetched again aren't new", changed.isEmpty());
+    }
+
+    @Test
+    public void testLookup() {
+        String key = ClearCasePoller.key(scmA);
+        subscribe(NOW);
+        Date since = new Date(NOW + 500L);
+
+        Assert.assertNull("Nothing is known before the first query", 
+                                             poller.lookup(scmA, new LoadRuleDateMap(), since, Long.MAX_VALUE));
+
+        poller.record(key, Arrays.asList("/vobs/a", "/vobs/b"), 
+                                       Arrays.asList(entry(NOW + 1000L, "/vobs/a/x/f.c")), NOW + 5000L);
+
+        LoadRuleDateMap baseline = new LoadRuleDateMap();
+        baseline.setBuildTime("/vobs/a/x", new Date(NOW));
+        baseline.setBuildTime("/vobs/b", new Date(NOW));
+
+        LoadRuleDateMap remote = poller.lookup(scmA, baseline, since, Long.MAX_VALUE);
+        Assert.assertEquals(new Date(NOW + 1000L), remote.getBuiltTime("/vobs/a/x"));
+        Assert.assertEquals(new Date(NOW), remote.getBuiltTime("/vobs/b"));
+        Assert.assertTrue(SimpleClearCaseSCM.isChanged(baseline, remote));
+        Assert.assertEquals("Baseline isn't changed", new Date(NOW), baseline.getBuiltTime("/vobs/a/x"));
+
+        baseline.setBuildTime("/vobs/a/x", new Date(NOW + 1000L));
+        Assert.assertFalse(SimpleClearCaseSCM.isChanged(baseline, 
+                                                     poller.lookup(scmA, baseline, since, Long.MAX_VALUE)));
+
+        Assert.assertNull("Events before the poller started aren't known", 
+                                   poller.lookup(scmA, baseline, new Date(NOW - 1000L), Long.MAX_VALUE));
+        Assert.assertNull("Events are too old", poller.lookup(scmA, baseline, since, 0L));
+        Assert.assertNull("Other views aren't known", poller.lookup(
+                    new SimpleClearCaseSCM("/vobs/a", "other", "main", false), baseline, since, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testHistory() {
+        String key = ClearCasePoller.key(scmA);
+        List<String> roots = Arrays.asList("/vobs/a", "/vobs/b");
+        subscribe(NOW);
+
+        SimpleClearCaseChangeLogEntry first = entry(NOW + 1000L, "/vobs/a/x/f.c");
+        first.setEventId("oid:1");
+        SimpleClearCaseChangeLogEntry second = entry(NOW + 2000L, "/vobs/b/g.c");
+        second.setEventId("oid:2");
+        poller.record(key, roots, Arrays.asList(first, second), NOW + 65000L);
+        // the next query overlaps the previous one
+        poller.record(key, roots, Arrays.asList(first), NOW + 125000L);
+
+        LoadRuleDateMap previous = new LoadRuleDateMap();
+        previous.setBuildTime("/vobs/a/x", new Date(NOW + 1000L));
+        previous.setBuildTime("/vobs/b", new Date(NOW));
+
+        ClearCasePoller.PolledHistory history = poller.getHistory(scmA, previous, null);
+        Assert.assertEquals("Events fetched twice are kept once", 2, history.getEntries().size());
+        Assert.assertEquals("oid:1", history.getEntries().get(0).getEventId());
+        Assert.assertNotSame("Entries are copied", first, history.getEntries().get(0));
+        Assert.assertEquals("Remaining events are fetched from the latest query", new Date(NOW + 65000L), 
+                                                            history.getSince().getBuiltTime("/vobs/a/x"));
+
+        previous.setBuildTime("/vobs/a/x", new Date(NOW - 1000L));
+        Assert.assertNull("Events before the poller started aren't known", poller.getHistory(scmA, previous, null));
+        Assert.assertNull("Default window isn't followed", poller.getHistory(scmA, new LoadRuleDateMap(), null));
+    }
+
+    @Test
+    public void testLateLoadRule() {
+        SimpleClearCaseSCM scmC = new SimpleClearCaseSCM("/vobs/a/x", "view", "main", false);
+        String key = ClearCasePoller.key(scmB);
+        Map<String, List<SimpleClearCaseSCM>> scms = new HashMap<String, List<SimpleClearCaseSCM>>();
+        scms.put(key, Arrays.<SimpleClearCaseSCM>asList(scmB));
+        poller.subscribe(scms, NOW, 60000L);
+        poller.record(key, Arrays.asList("/vobs/a"), Arrays.asList(entry(NOW + 1000L, "/vobs/a/x/f.c")), NOW + 5000L);
+
+        // a job of a load rule below the root subscribes after the event was recorded
+        scms.put(key, Arrays.asList(scmB, scmC));
+        poller.subscribe(scms, NOW + 10000L, 60000L);
+
+        LoadRuleDateMap baseline = new LoadRuleDateMap();
+        baseline.setBuildTime("/vobs/a/x", new Date(NOW));
+        LoadRuleDateMap remote = poller.lookup(scmC, baseline, new Date(NOW + 500L), Long.MAX_VALUE);
+
+        Assert.assertEquals("Events recorded before the load rule joined count", new Date(NOW + 1000L), 
+                                                                         remote.getBuiltTime("/vobs/a/x"));
+        Assert.assertTrue(SimpleClearCaseSCM.isChanged(baseline, remote));
+    }
+
+    @Test
+    public void testLateLoadRuleTrimmedHistory() {
+        ClearCasePoller trimming = new ClearCasePoller(0L);
+        SimpleClearCaseSCM scmC = new SimpleClearCaseSCM("/vobs/a/x", "view", "main", false);
+        String key = ClearCasePoller.key(scmB);
+        Map<String, List<SimpleClearCaseSCM>> scms = new HashMap<String, List<SimpleClearCaseSCM>>();
+        scms.put(key, Arrays.<SimpleClearCaseSCM>asList(scmB));
+        trimming.subscribe(scms, NOW, 60000L);
+        trimming.record(key, Arrays.asList("/vobs/a"), Arrays.asList(entry(NOW + 1000L, "/vobs/a/x/f.c")), NOW + 5000L);
+
+        scms.put(key, Arrays.asList(scmB, scmC));
+        trimming.subscribe(scms, NOW + 10000L, 60000L);
+
+        LoadRuleDateMap baseline = new LoadRuleDateMap();
+        baseline.setBuildTime("/vobs/a/x", new Date(NOW));
+        Assert.assertNull("Events which aren't kept anymore aren't known to a load rule joining later", 
+                             trimming.lookup(scmC, baseline, new Date(NOW + 500L), Long.MAX_VALUE));
+        Assert.assertNotNull("The root load rule still knows them", 
+                             trimming.lookup(scmB, new LoadRuleDateMap(), new Date(NOW + 500L), Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testNewRootContinuesQueries() {
+        SimpleClearCaseSCM scmC = new SimpleClearCaseSCM("/vobs/a/x", "view", "main", false);
+        String key = ClearCasePoller.key(scmC);
+        Map<String, List<SimpleClearCaseSCM>> scms = new HashMap<String, List<SimpleClearCaseSCM>>();
+        scms.put(key, Arrays.<SimpleClearCaseSCM>asList(scmC));
+        poller.subscribe(scms, NOW, 60000L);
+        poller.record(key, Arrays.asList("/vobs/a/x"), Collections.<SimpleClearCaseChangeLogEntry>emptyList(), 
+                                                                                            NOW + 65000L);
+
+        // the new load rule prefixes the old one, and becomes the root queried
+        scms.put(key, Arrays.asList(scmC, scmB));
+        poller.subscribe(scms, NOW + 70000L, 60000L);
+
+        LoadRuleDateMap previous = new LoadRuleDateMap();
+        previous.setBuildTime("/vobs/a", new Date(NOW + 65000L));
+        Assert.assertEquals("The new root is queried from where the old one stopped", new Date(NOW + 5000L), 
+                                  poller.getHistory(scmB, previous, null).getSince().getBuiltTime("/vobs/a"));
+        Assert.assertNull("Nothing is known of the new root before that", 
+                                  poller.lookup(scmB, new LoadRuleDateMap(), new Date(NOW), Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testHistoryQuietLoadRule() {
+        String key = ClearCasePoller.key(scmA);
+        List<String> roots = Arrays.asList("/vobs/a", "/vobs/b");
+        subscribe(NOW);
+        poller.record(key, roots, Arrays.asList(entry(NOW + 1000L, "/vobs/a/x/f.c")), NOW + 65000L);
+        poller.record(key, roots, Arrays.asList(entry(NOW + 120000L, "/vobs/a/x/g.c")), NOW + 185000L);
+
+        // /vobs/b hasn't had any events since long before the poller started
+        LoadRuleDateMap previous = new LoadRuleDateMap();
+        previous.setBuildTime("/vobs/a/x", new Date(NOW + 1000L));
+        previous.setBuildTime("/vobs/b", new Date(NOW - 1000000L));
+
+        Assert.assertNull("Without the time of the previous build the quiet load rule isn't covered", 
+                                                              poller.getHistory(scmA, previous, null));
+        Assert.assertNull("The previous build started before the poller did", 
+                                               poller.getHistory(scmA, previous, new Date(NOW + 30000L)));
+
+        ClearCasePoller.PolledHistory history = poller.getHistory(scmA, previous, new Date(NOW + 70000L));
+        Assert.assertNotNull("The previous build fetched the events of the quiet load rule up to its start", 
+                                                                                                  history);
+        Assert.assertEquals(2, history.getEntries().size());
+        Assert.assertEquals(new Date(NOW + 125000L), history.getSince().getBuiltTime("/vobs/b"));
+
+        previous.setBuildTime("/vobs/a/x", new Date(NOW - 1000000L));
+        Assert.assertNull("A load rule with events after its date isn't quiet", 
+                                               poller.getHistory(scmA, previous, new Date(NOW + 125000L)));
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import hudson.util.ArgumentListBuilder;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ClearToolSessionTest {
+    private ByteArrayOutputStream stdin = new ByteArrayOutputStream();
+
+    private ClearToolSession attach(String stdout) throws IOException {
+        ClearToolSession session = new ClearToolSession("view");
+        session.attach(stdin, new ByteArrayInputStream(stdout.getBytes("UTF-8")));
+        return session;
+    }
+
+    @Test
+    public void testFraming() throws IOException {
+        ClearToolSession session = attach("cleartool> /view/view\nCommand 1 returned status 0\n" 
+                                        + "cleartool> first\nsecond\nCommand 2 returned status 1\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Assert.assertEquals(0, session.execute(new ArgumentListBuilder("pwd"), out));
+        Assert.assertEquals("The prompt is stripped", "/view/view\n", out.toString("UTF-8"));
+
+        out.reset();
+        Assert.assertEquals("The status of the command is returned", 1, 
+                                                session.execute(new ArgumentListBuilder("describe", "x"), out));
+        Assert.assertEquals("first\nsecond\n", out.toString("UTF-8"));
+        Assert.assertEquals("pwd\ndescribe x\n", stdin.toString("UTF-8"));
+        Assert.assertTrue(session.isAlive());
+    }
+
+    @Test
+    public void testStatusLineInOutput() throws IOException {
+        ClearToolSession session = attach("cleartool> Command 1 returned status 0\n" 
+                                        + "cleartool> Command 1 returned status 0\nCommand 7 returned status 0\n" 
+                                        + "Command 2 returned status 0\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Assert.assertEquals(0, session.execute(new ArgumentListBuilder("pwd"), null));
+        Assert.assertEquals(0, session.execute(new ArgumentListBuilder("lshistory", "x"), out));
+        Assert.assertEquals("Status lines of other commands are output", 
+                          "Command 1 returned status 0\nCommand 7 returned status 0\n", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testTerminated() throws IOException {
+        ClearToolSession session = attach("cleartool> partial output\n");
+
+        try {
+            session.execute(new ArgumentListBuilder("lshistory", "x"), null);
+            Assert.fail("The session terminated before the status line");
+        } catch (IOException e) {
+            Assert.assertFalse(session.isAlive());
+        }
+    }
+}
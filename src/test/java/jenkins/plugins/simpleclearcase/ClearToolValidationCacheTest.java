@@ -0,0 +1,87 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ClearToolValidationCacheTest {
+
+    @Test
+    public void testGetPut() {
+        ClearToolValidationCache cache = new ClearToolValidationCache(10, 60000);
+        String key = ClearToolValidationCache.key("path", "view", "/vobs/a");
+
+        Assert.assertNull("Nothing is stored yet", cache.get(key));
+
+        cache.put(key, false);
+        Assert.assertEquals("A negative result is stored as well", Boolean.FALSE, cache.get(key));
+
+        cache.put(key, true);
+        Assert.assertEquals("Result is replaced", Boolean.TRUE, cache.get(key));
+    }
+
+    @Test
+    public void testKeysDontCollide() {
+        Assert.assertFalse("Parts are separated", ClearToolValidationCache.key("ab", "c").equals(
+                                                  ClearToolValidationCache.key("a", "bc")));
+    }
+
+    @Test
+    public void testExpiry() {
+        // with no timeout every result is expired at once
+        ClearToolValidationCache cache = new ClearToolValidationCache(10, 0);
+        cache.put("key", true);
+
+        Assert.assertNull("Result has expired", cache.get("key"));
+        Assert.assertEquals("Expired result is removed", 0, cache.size());
+    }
+
+    @Test
+    public void testSizeLimit() {
+        ClearToolValidationCache cache = new ClearToolValidationCache(2, 60000);
+        cache.put("a", true);
+        cache.put("b", true);
+
+        // a is used, hence b is the least recently used one
+        cache.get("a");
+        cache.put("c", true);
+
+        Assert.assertEquals("Size is limited", 2, cache.size());
+        Assert.assertNotNull("Recently used result is kept", cache.get("a"));
+        Assert.assertNull("Least recently used result is dropped", cache.get("b"));
+        Assert.assertNotNull("Newest result is kept", cache.get("c"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        ClearToolValidationCache cache = new ClearToolValidationCache(10, 60000);
+        cache.put("a", true);
+        cache.invalidate();
+
+        Assert.assertNull("Result is forgotten", cache.get("a"));
+    }
+}
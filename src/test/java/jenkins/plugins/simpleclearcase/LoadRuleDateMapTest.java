@@ -0,0 +1,151 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class LoadRuleDateMapTest {
+
+	private LoadRuleDateMap createMap(int loadRules) {
+		LoadRuleDateMap map = new LoadRuleDateMap();
+
+		for (int i = 0; i < loadRules; i++) {
+			map.setBuildTime("/vobs/lr" + i, new Date(1000L * i));
+		}
+		return map;
+	}
+
+	@Test
+	public void testManyLoadRules() {
+		LoadRuleDateMap map = createMap(5000);
+
+		Assert.assertEquals(5000, map.size());
+		Assert.assertEquals(new Date(1000L * 4711), map.getBuiltTime("/vobs/lr4711"));
+		Assert.assertFalse(map.containsLoadRule("/vobs/lr5000"));
+		Assert.assertNull(map.getBuiltTime("/vobs/lr5000"));
+		
+		map.setBuildTime("/vobs/lr4711", null);
+		Assert.assertTrue("a load rule without date is still in the map", map.containsLoadRule("/vobs/lr4711"));
+		Assert.assertNull(map.getBuiltTime("/vobs/lr4711"));
+		Assert.assertEquals(5000, map.getDates().size());
+	}
+
+	@Test
+	public void testCopyIsIndependent() {
+		LoadRuleDateMap map = createMap(3);
+		LoadRuleDateMap copy = map.copy();
+
+		copy.setBuildTime("/vobs/lr1", new Date(5000));
+		copy.setBuildTime("/vobs/new", new Date(6000));
+		map.setBuildTime("/vobs/lr2", null);
+
+		Assert.assertEquals(new Date(1000), map.getBuiltTime("/vobs/lr1"));
+		Assert.assertFalse(map.containsLoadRule("/vobs/new"));
+		Assert.assertEquals(new Date(2000), copy.getBuiltTime("/vobs/lr2"));
+		Assert.assertEquals(new Date(6000), copy.getBuiltTime("/vobs/new"));
+		Assert.assertEquals(3, map.size());
+		Assert.assertEquals(4, copy.size());
+	}
+
+	@Test
+	public void testIsBefore() {
+		LoadRuleDateMap baseline = createMap(100);
+		// a copy shares the load rules of baseline, whereas a new map doesn't 
+		LoadRuleDateMap[] remotes = new LoadRuleDateMap[] { baseline.copy(), createMap(100) };
+
+		for (LoadRuleDateMap remote : remotes) {
+			Assert.assertFalse("equal maps", baseline.isBefore(remote));
+
+			remote.setBuildTime("/vobs/lr50", null);
+			Assert.assertFalse("remote without date", baseline.isBefore(remote));
+
+			remote.setBuildTime("/vobs/lr50", new Date(1000L * 50 + 1));
+			Assert.assertTrue("remote newer", baseline.isBefore(remote));
+			Assert.assertFalse(remote.isBefore(baseline));
+		}
+
+		LoadRuleDateMap empty = new LoadRuleDateMap();
+		empty.setBuildTime("/vobs/lr0", null);
+		Assert.assertTrue("no date is before any date", empty.isBefore(baseline));
+		Assert.assertFalse(new LoadRuleDateMap().isBefore(baseline));
+	}
+
+	@Test
+	public void testMerge() {
+		LoadRuleDateMap previous = createMap(3);
+		LoadRuleDateMap latest = new LoadRuleDateMap();
+		latest.setBuildTime("/vobs/lr0", null);
+		latest.setBuildTime("/vobs/lr1", new Date(9000));
+		latest.setBuildTime("/vobs/new", new Date(7000));
+
+		LoadRuleDateMap merged = previous.merge(latest);
+		Assert.assertEquals(4, merged.size());
+		Assert.assertEquals(new Date(0), merged.getBuiltTime("/vobs/lr0"));
+		Assert.assertEquals(new Date(9000), merged.getBuiltTime("/vobs/lr1"));
+		Assert.assertEquals(new Date(2000), merged.getBuiltTime("/vobs/lr2"));
+		Assert.assertEquals(new Date(7000), merged.getBuiltTime("/vobs/new"));
+		Assert.assertEquals("merge doesn't change the maps", new Date(1000), previous.getBuiltTime("/vobs/lr1"));
+
+		LoadRuleDateMap copy = previous.copy();
+		copy.setBuildTime("/vobs/lr2", new Date(8000));
+		merged = copy.merge(previous);
+		Assert.assertEquals(new Date(8000), merged.getBuiltTime("/vobs/lr2"));
+		Assert.assertEquals(new Date(1000), merged.getBuiltTime("/vobs/lr1"));
+	}
+
+	@Test
+	public void testReadLegacyMap() throws Exception {
+		Map<String, Date> legacy = new HashMap<String, Date>();
+		legacy.put("/vobs/a", new Date(1000));
+		legacy.put("/vobs/b", null);
+
+		// as XStream does, which doesn't run any constructor
+		LoadRuleDateMap map = new LoadRuleDateMap();
+		Field loadRules = LoadRuleDateMap.class.getDeclaredField("loadRules");
+		loadRules.setAccessible(true);
+		loadRules.set(map, null);
+		Field field = LoadRuleDateMap.class.getDeclaredField("map");
+		field.setAccessible(true);
+		field.set(map, legacy);
+
+		Method readResolve = LoadRuleDateMap.class.getDeclaredMethod("readResolve");
+		readResolve.setAccessible(true);
+		readResolve.invoke(map);
+
+		Assert.assertNull(field.get(map));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals(new Date(1000), map.getBuiltTime("/vobs/a"));
+		Assert.assertTrue(map.containsLoadRule("/vobs/b"));
+		Assert.assertNull(map.getBuiltTime("/vobs/b"));
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import hudson.util.StreamTaskListener;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class LshistoryBatchOutputTest {
+    private static final String END = SimpleClearCaseChangeLogEntry.LSHISTORY_RECORD_END;
+
+    private ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    private ClearTool.LshistoryOutputStream parse(int size, String output) throws IOException, InterruptedException {
+        ClearTool ct = new ClearTool(null, new StreamTaskListener(log), null, "view", null, false);
+        ClearTool.LshistoryOutputStream out = ct.new LshistoryOutputStream(size);
+
+        out.write(output.getBytes("UTF-8"));
+        out.close();
+        return out;
+    }
+
+    private static String record(String date, String path, String comment) {
+        return date + "\tetavsam\t" + path + "\t/main/1\tcreate version\tcheckin\toid:" + path + "\t" + comment 
+                                                                                             + "\n" + END + "\n";
+    }
+
+    private static String begin(int index) {
+        return ClearTool.BATCH_BEGIN_MARKER + " " + index + "\n";
+    }
+
+    private static String end(int index, int exitCode) {
+        return ClearTool.BATCH_END_MARKER + " " + index + " " + exitCode + "\n";
+    }
+
+    @Test
+    public void testDemultiplexing() throws IOException, InterruptedException {
+        ClearTool.LshistoryOutputStream out = parse(2, 
+                  begin(0) + record("20110620.134953", "/vobs/a/f.c", "a") + record("20110620.134954", "/vobs/a/g.c", "b") 
+                + end(0, 0) 
+                + begin(1) + record("20110620.134955", "/vobs/b/h.c", "c") + end(1, 0));
+
+        Assert.assertEquals(2, out.getEntries(0).size());
+        Assert.assertEquals(1, out.getEntries(1).size());
+        Assert.assertEquals("c", out.getEntries(1).get(0).getComment());
+        Assert.assertEquals(Integer.valueOf(0), out.getExitCode(0));
+        Assert.assertEquals(Integer.valueOf(0), out.getExitCode(1));
+    }
+
+    @Test
+    public void testFailingLoadRuleMidBatch() throws IOException, InterruptedException {
+        ClearTool.LshistoryOutputStream out = parse(3, 
+                  begin(0) + record("20110620.134953", "/vobs/a/f.c", "a") + end(0, 0) 
+                + begin(1) + "cleartool: Error: Unable to access \"/vobs/gone\": No such file or directory.\n" 
+                + end(1, 1) 
+                + begin(2) + record("20110620.134955", "/vobs/c/h.c", "c") + end(2, 0));
+
+        Assert.assertEquals(Integer.valueOf(0), out.getExitCode(0));
+        Assert.assertEquals("The exit code of the failing load rule is kept", Integer.valueOf(1), out.getExitCode(1));
+        Assert.assertTrue(out.getEntries(1).isEmpty());
+        Assert.assertEquals("The load rules after it are still parsed", Integer.valueOf(0), out.getExitCode(2));
+        Assert.assertEquals(1, out.getEntries(2).size());
+        Assert.assertEquals("/vobs/c/h.c", out.getEntries(2).get(0).getAffectedPaths().iterator().next());
+    }
+
+    @Test
+    public void testMissingEndMarker() throws IOException, InterruptedException {
+        // setview died during the second load rule
+        ClearTool.LshistoryOutputStream out = parse(2, 
+                  begin(0) + record("20110620.134953", "/vobs/a/f.c", "a") + end(0, 0) 
+                + begin(1) + record("20110620.134955", "/vobs/b/h.c", "c"));
+
+        Assert.assertEquals(Integer.valueOf(0), out.getExitCode(0));
+        Assert.assertNull("A load rule without end marker has no exit code", out.getExitCode(1));
+    }
+
+    @Test
+    public void testMarkerInComment() throws IOException, InterruptedException {
+        String comment = "merged from\n" + end(0, 0) + begin(1) + "and more";
+        ClearTool.LshistoryOutputStream out = parse(2, 
+                  begin(0) + record("20110620.134953", "/vobs/a/f.c", comment) + end(0, 0) 
+                + begin(1) + record("20110620.134955", "/vobs/b/h.c", "c") + end(1, 0));
+
+        Assert.assertEquals(1, out.getEntries(0).size());
+        Assert.assertEquals("Markers in a comment are part of it", comment, out.getEntries(0).get(0).getComment());
+        Assert.assertEquals(1, out.getEntries(1).size());
+        Assert.assertEquals(Integer.valueOf(0), out.getExitCode(1));
+    }
+
+    @Test
+    public void testOutputOutsideLoadRules() throws IOException, InterruptedException {
+        ClearTool.LshistoryOutputStream out = parse(1, 
+                  "noise printed by the login shell\n" + begin(0) + record("20110620.134953", "/vobs/a/f.c", "a") 
+                + end(0, 0));
+
+        Assert.assertEquals(1, out.getEntries(0).size());
+        Assert.assertTrue(log.toString().contains("noise printed by the login shell"));
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class LshistoryCacheTest {
+    private static final String KEY = LshistoryCache.key("view", "branch", "/vobs/a", false);
+
+    /**
+     * Counts its calls and returns found.
+     */
+    private static class CountingProbe implements LshistoryCache.Probe {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final Date found;
+
+        public CountingProbe(Date found) {
+            this.found = found;
+        }
+
+        public Date call() throws InterruptedException, IOException {
+            calls.incrementAndGet();
+            return found;
+        }
+    }
+
+    @Test
+    public void testFoundIsReused() throws Exception {
+        LshistoryCache cache = new LshistoryCache(10, 60000);
+        CountingProbe probe = new CountingProbe(new Date(5000L));
+
+        Assert.assertEquals(new Date(5000L), cache.probe(KEY, new Date(1000L), new Date(2000L), probe));
+        Assert.assertEquals("Event is newer than a later threshold", new Date(5000L), 
+                                             cache.probe(KEY, new Date(3000L), new Date(4000L), probe));
+        Assert.assertEquals(1, probe.calls.get());
+
+        cache.probe(KEY, new Date(1000L), new Date(5000L), probe);
+        Assert.assertEquals("Event isn't newer than its own date", 2, probe.calls.get());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testNothingFoundIsReused() throws Exception {
+        LshistoryCache cache = new LshistoryCache(10, 60000);
+        CountingProbe probe = new CountingProbe(null);
+
+        Assert.assertNull(cache.probe(KEY, new Date(1000L), new Date(2000L), probe));
+        Assert.assertNull("Later since and threshold", cache.probe(KEY, new Date(1500L), new Date(3000L), probe));
+        Assert.assertEquals(1, probe.calls.get());
+
+        cache.probe(KEY, new Date(500L), new Date(3000L), probe);
+        Assert.assertEquals("Earlier since isn't covered", 2, probe.calls.get());
+        cache.probe(KEY, new Date(500L), new Date(1000L), probe);
+        Assert.assertEquals("Earlier threshold isn't covered", 3, probe.calls.get());
+        cache.probe(LshistoryCache.key("view", "branch", "/vobs/b", false), new Date(500L), null, probe);
+        Assert.assertEquals("Other load rule isn't shared", 4, probe.calls.get());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        // with no timeout every outcome is expired at once
+        LshistoryCache cache = new LshistoryCache(10, 0);
+        CountingProbe probe = new CountingProbe(null);
+
+        cache.probe(KEY, null, null, probe);
+        cache.probe(KEY, null, null, probe);
+        Assert.assertEquals(2, probe.calls.get());
+    }
+
+    @Test
+    public void testRunningProbeIsShared() throws Exception {
+        final LshistoryCache cache = new LshistoryCache(10, 60000);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final Date[] results = new Date[2];
+
+        final LshistoryCache.Probe probe = new LshistoryCache.Probe() {
+            public Date call() throws InterruptedException, IOException {
+                calls.incrementAndGet();
+                started.countDown();
+                release.await();
+                return new Date(5000L);
+            }
+        };
+        Thread first = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    results[0] = cache.probe(KEY, new Date(1000L), new Date(2000L), probe);
+                } catch (Exception e) {
+                    // results[0] stays null
+                }
+            }
+        };
+        first.start();
+        started.await();
+
+        Thread second = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    results[1] = cache.probe(KEY, new Date(1000L), new Date(2000L), probe);
+                } catch (Exception e) {
+                    // results[1] stays null
+                }
+            }
+        };
+        second.start();
+        // gives the second probe time to find the first one running
+        Thread.sleep(200);
+        release.countDown();
+        first.join();
+        second.join();
+
+        Assert.assertEquals("Only one lshistory", 1, calls.get());
+        Assert.assertEquals(new Date(5000L), results[0]);
+        Assert.assertEquals(new Date(5000L), results[1]);
+    }
+
+    @Test
+    public void testHangingProbeIsntWaitedFor() throws Exception {
+        final LshistoryCache cache = new LshistoryCache(10, 60000);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // a probe hanging until released
+        final LshistoryCache.Probe hanging = new LshistoryCache.Probe() {
+            public Date call() throws InterruptedException, IOException {
+                started.countDown();
+                release.await();
+                return null;
+            }
+        };
+        Thread first = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    cache.probe(KEY, new Date(1000L), new Date(2000L), hanging);
+                } catch (Exception e) {
+                    // nothing to check
+                }
+            }
+        };
+        first.start();
+        started.await();
+
+        try {
+            CountingProbe probe = new CountingProbe(new Date(5000L));
+            long start = System.currentTimeMillis();
+
+            Assert.assertEquals(new Date(5000L), cache.probe(KEY, new Date(1000L), new Date(2000L), 200, probe));
+            Assert.assertEquals("Probe is run on its own", 1, probe.calls.get());
+            Assert.assertTrue("Waited no longer than allowed", System.currentTimeMillis() - start < 5000);
+        } finally {
+            release.countDown();
+            first.join();
+        }
+        Assert.assertEquals("Probe run on its own isn't answered by the cache", 0, cache.getHits());
+    }
+
+    @Test
+    public void testFailureIsntShared() throws Exception {
+        LshistoryCache cache = new LshistoryCache(10, 60000);
+
+        try {
+            cache.probe(KEY, null, null, new LshistoryCache.Probe() {
+                public Date call() throws InterruptedException, IOException {
+                    throw new IOException("lshistory failed");
+                }
+            });
+            Assert.fail("Failure is thrown");
+        } catch (IOException e) {
+            // expected
+        }
+        CountingProbe probe = new CountingProbe(null);
+        cache.probe(KEY, null, null, probe);
+        Assert.assertEquals("Failed probe isn't reused", 1, probe.calls.get());
+    }
+}
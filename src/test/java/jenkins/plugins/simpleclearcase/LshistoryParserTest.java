@@ -0,0 +1,136 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import hudson.util.StreamTaskListener;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class LshistoryParserTest {
+    private static final String END = SimpleClearCaseChangeLogEntry.LSHISTORY_RECORD_END;
+
+    private ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    private ClearTool.LshistoryParser createParser() throws IOException, InterruptedException {
+        ClearTool ct = new ClearTool(null, new StreamTaskListener(log), null, "view", null, false);
+        return ct.new LshistoryParser();
+    }
+
+    // a record as printed by lshistory with LSHISTORY_FORMATTING, without the record end line
+    private static String record(String date, String path, String eventId, String comment) {
+        return date + "\tetavsam\t" + path + "\t/main/1\tcreate version\tcheckin\t" + eventId + "\t" + comment;
+    }
+
+    private static List<SimpleClearCaseChangeLogEntry> parse(ClearTool.LshistoryParser parser, String output) {
+        for (String line : output.split("\n", -1)) {
+            parser.parseLine(line);
+        }
+        parser.finish();
+        return parser.getEntries();
+    }
+
+    @Test
+    public void testRecord() throws IOException, InterruptedException {
+        List<SimpleClearCaseChangeLogEntry> entries = parse(createParser(), 
+                                    record("20110620.134953", "/vobs/a/f.c", "oid:1", "fix") + "\n" + END);
+
+        Assert.assertEquals(1, entries.size());
+        SimpleClearCaseChangeLogEntry entry = entries.get(0);
+        Assert.assertEquals("etavsam", entry.getUser());
+        Assert.assertEquals("/main/1", entry.getVersion());
+        Assert.assertEquals("create version", entry.getEventDescription());
+        Assert.assertEquals("checkin", entry.getOperation());
+        Assert.assertEquals("oid:1", entry.getEventId());
+        Assert.assertEquals("fix", entry.getComment());
+        Assert.assertEquals(Arrays.asList("/vobs/a/f.c"), new ArrayList<String>(entry.getAffectedPaths()));
+    }
+
+    @Test
+    public void testCommentWithTabsAndNewlines() throws IOException, InterruptedException {
+        String comment = "first\tline\n\tsecond line\n" + END + " isn't alone on this line";
+        List<SimpleClearCaseChangeLogEntry> entries = parse(createParser(), 
+                                    record("20110620.134953", "/vobs/a/f.c", "oid:1", comment) + "\n" + END);
+
+        Assert.assertEquals(1, entries.size());
+        Assert.assertEquals("Comment is kept as is", comment, entries.get(0).getComment());
+        Assert.assertEquals("Fields before the comment aren't shifted", "oid:1", entries.get(0).getEventId());
+    }
+
+    @Test
+    public void testEmptyComment() throws IOException, InterruptedException {
+        List<SimpleClearCaseChangeLogEntry> entries = parse(createParser(), 
+                                    record("20110620.134953", "/vobs/a/f.c", "", "") + "\n" + END + "\n" 
+                                  + record("20110620.134954", "/vobs/a/g.c", "oid:2", "") + "\n" + END);
+
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals("", entries.get(0).getComment());
+        Assert.assertNull("A missing event id is null", entries.get(0).getEventId());
+        Assert.assertEquals("/vobs/a/g.c", entries.get(1).getAffectedPaths().iterator().next());
+    }
+
+    @Test
+    public void testRecordCutOffAtEOF() throws IOException, InterruptedException {
+        List<SimpleClearCaseChangeLogEntry> entries = parse(createParser(), 
+                                    record("20110620.134953", "/vobs/a/f.c", "oid:1", "done") + "\n" + END + "\n" 
+                                  + record("20110620.134954", "/vobs/a/g.c", "oid:2", "half a comm"));
+
+        Assert.assertEquals("Only the complete record is parsed", 1, entries.size());
+        Assert.assertEquals("oid:1", entries.get(0).getEventId());
+        Assert.assertTrue("The rest is logged", log.toString().contains("half a comm"));
+    }
+
+    @Test
+    public void testNoiseBetweenRecords() throws IOException, InterruptedException {
+        List<SimpleClearCaseChangeLogEntry> entries = parse(createParser(), 
+                                    "cleartool: Warning: a warning before any record\n"
+                                  + record("20110620.134953", "/vobs/a/f.c", "oid:1", "one") + "\n" + END + "\n" 
+                                  + "cleartool: Error: Unable to access \"/vobs/a/gone.c\"\n\n"
+                                  + record("20110620.134954", "/vobs/a/g.c", "oid:2", "two") + "\n" + END + "\n");
+
+        Assert.assertEquals("The noise doesn't cost the next record", 2, entries.size());
+        Assert.assertEquals("one", entries.get(0).getComment());
+        Assert.assertEquals("two", entries.get(1).getComment());
+        Assert.assertEquals("/main/1", entries.get(1).getVersion());
+        Assert.assertTrue("The noise is logged", log.toString().contains("Unable to access"));
+    }
+
+    @Test
+    public void testUnparsableDate() throws IOException, InterruptedException {
+        List<SimpleClearCaseChangeLogEntry> entries = parse(createParser(), 
+                                    record("yesterday", "/vobs/a/f.c", "oid:1", "one") + "\n" + END + "\n" 
+                                  + record("20110620.134954", "/vobs/a/g.c", "oid:2", "two") + "\n" + END);
+
+        Assert.assertEquals(1, entries.size());
+        Assert.assertEquals("oid:2", entries.get(0).getEventId());
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+
+import jenkins.plugins.simpleclearcase.util.TimestampCodec;
+
+import hudson.util.StreamTaskListener;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class LshistoryProbeOutputTest {
+    private static final String END = SimpleClearCaseChangeLogEntry.LSHISTORY_RECORD_END;
+
+    private static String record(String date, String comment) {
+        return date + "\tetavsam\t/vobs/a/f.c\t/main/1\tcreate version\tcheckin\toid:" + date + "\t" + comment 
+                                                                                             + "\n" + END + "\n";
+    }
+
+    private static Date date(String timestamp) {
+        return new Date(TimestampCodec.getDefault().parse(timestamp, 0, timestamp.length()));
+    }
+
+    private ClearTool.LshistoryProbeOutputStream probe(Date threshold, String output) 
+                                                                  throws IOException, InterruptedException {
+        ClearTool ct = new ClearTool(null, new StreamTaskListener(new ByteArrayOutputStream()), null, "view", 
+                                                                                           null, false);
+        ClearTool.LshistoryProbeOutputStream out = ct.new LshistoryProbeOutputStream(threshold);
+
+        out.write(output.getBytes("UTF-8"));
+        out.close();
+        return out;
+    }
+
+    @Test
+    public void testStopsAtFirstNewerEvent() throws IOException, InterruptedException {
+        ClearTool.LshistoryProbeOutputStream out = probe(date("20110620.134953"), 
+                                  record("20110620.134950", "older") + record("20110620.134953", "baseline") 
+                                + record("20110620.134955", "newer") + record("20110620.135959", "newest"));
+
+        Assert.assertEquals("The first event newer than the baseline is found, the rest is ignored", 
+                                                                     date("20110620.134955"), out.getFound());
+    }
+
+    @Test
+    public void testNothingNewer() throws IOException, InterruptedException {
+        ClearTool.LshistoryProbeOutputStream out = probe(date("20110620.134953"), 
+                                  record("20110620.134950", "older") + record("20110620.134953", "baseline"));
+
+        Assert.assertNull("Events at the baseline aren't newer", out.getFound());
+    }
+
+    @Test
+    public void testWithoutBaseline() throws IOException, InterruptedException {
+        ClearTool.LshistoryProbeOutputStream out = probe(null, 
+                                  "cleartool: Warning: noise\n" + record("20110620.134950", "any\nevent"));
+
+        Assert.assertEquals("Any event is newer", date("20110620.134950"), out.getFound());
+    }
+
+    @Test
+    public void testIncompleteRecord() throws IOException, InterruptedException {
+        ClearTool.LshistoryProbeOutputStream out = probe(date("20110620.134953"), 
+                                  "20110620.134955\tetavsam\t/vobs/a/f.c\t/main/1\tcreate version\tcheckin\toid:1\tcut");
+
+        Assert.assertNull("An event is only found once its record is complete", out.getFound());
+    }
+}
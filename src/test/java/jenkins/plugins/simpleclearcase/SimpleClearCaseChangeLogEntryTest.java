@@ -62,4 +62,19 @@ public class SimpleClearCaseChangeLogEntryTest {
 		Assert.assertEquals("Fetched username doesn't match", "etavsam", set.getEntries().get(0).getUser());
 	}
 
+	@Test
+	public void testSharedFields() {
+		SimpleClearCaseChangeLogEntry a = new SimpleClearCaseChangeLogEntry(new Date(), new String("etavsam"), 
+		                                   "/main/dev/12", new String("create version"), "checkin", "a");
+		SimpleClearCaseChangeLogEntry b = new SimpleClearCaseChangeLogEntry(new Date(), new String("etavsam"), 
+		                                   "/main/dev/13", new String("create version"), "checkin", "b");
+
+		Assert.assertEquals("/main/dev/12", a.getVersion());
+		Assert.assertEquals("/main/dev/13", b.getVersion());
+		Assert.assertSame(a.getUser(), b.getUser());
+		Assert.assertSame(a.getEventDescription(), b.getEventDescription());
+
+		b.setVersion("CHECKEDOUT");
+		Assert.assertEquals("CHECKEDOUT", b.getVersion());
+	}
 }
@@ -24,8 +24,12 @@
 
 package jenkins.plugins.simpleclearcase;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -53,4 +57,112 @@ public class SimpleClearCaseChangeLogParserTest {
 		Assert.assertFalse("SimpleClearCaseChangeLogSet shouldn't be empty", 
 		                                                           readSet(CHANGELOG_SMALL).isEmptySet());
 	}
+
+	@Test
+	public void testWriteAndRead() throws IOException, ParserConfigurationException, SAXException {
+		SimpleClearCaseChangeLogEntry entry = new SimpleClearCaseChangeLogEntry(new Date(1000L), "etavsam", 
+		                      "/vobs/a/<b>.c", "/main/3", "create version", "checkin", "a & b\r\nsecond\tline");
+		entry.setEventId("oid:1");
+		SimpleClearCaseChangeLogSet set = new SimpleClearCaseChangeLogSet(null, 
+		                      Arrays.asList(entry, new SimpleClearCaseChangeLogEntry(new Date(2000L), "etavsam", 
+		                                                  "/main/4", "create version", "checkin", "")));
+
+		for (boolean indent : new boolean[] { true, false }) {
+			File file = File.createTempFile("changelog", ".xml");
+			try {
+				Assert.assertTrue(parser.writeChangeLog(file, set, null, indent));
+				List<SimpleClearCaseChangeLogEntry> entries = parser.readChangeLog(file);
+
+				Assert.assertEquals(2, entries.size());
+				Assert.assertEquals(new Date(1000L), entries.get(0).getDate());
+				Assert.assertEquals("a & b\r\nsecond\tline", entries.get(0).getComment());
+				Assert.assertEquals("oid:1", entries.get(0).getEventId());
+				Assert.assertEquals("[/vobs/a/<b>.c]", entries.get(0).getAffectedPaths().toString());
+				Assert.assertNull(entries.get(1).getEventId());
+				Assert.assertTrue(entries.get(1).getAffectedPaths().isEmpty());
+			} finally {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testCompactWriteAndRead() throws IOException, ParserConfigurationException, SAXException {
+		SimpleClearCaseChangeLogEntry first = new SimpleClearCaseChangeLogEntry(new Date(1000L), "etavsam", 
+		                    "/vobs/a/b/x.c", "/main/3", "create version", "checkin", "a & \"b\"\r\nsecond\tline");
+		first.setEventId("oid:1");
+		first.addPath("/vobs/a/y.c");
+		first.addPath("/vobs/a");
+		first.addPath("/other/z.c");
+		SimpleClearCaseChangeLogEntry second = new SimpleClearCaseChangeLogEntry(new Date(2000L), null, 
+		                                                  "/main/4", "create version", "checkin", "");
+		SimpleClearCaseChangeLogSet set = new SimpleClearCaseChangeLogSet(null, Arrays.asList(first, second));
+		List<String> loadRules = Arrays.asList("/vobs/a/b", "/vobs/a");
+
+		for (boolean compress : new boolean[] { true, false }) {
+			for (boolean indent : new boolean[] { true, false }) {
+				File file = File.createTempFile("changelog", ".xml");
+				try {
+					Assert.assertTrue(parser.writeCompactChangeLog(file, set, null, loadRules, indent, compress));
+					List<SimpleClearCaseChangeLogEntry> entries = parser.readChangeLog(file);
+
+					Assert.assertEquals(2, entries.size());
+					Assert.assertEquals(new Date(1000L), entries.get(0).getDate());
+					Assert.assertEquals("etavsam", entries.get(0).getUser());
+					Assert.assertEquals("checkin", entries.get(0).getOperation());
+					Assert.assertEquals("create version", entries.get(0).getEventDescription());
+					Assert.assertEquals("/main/3", entries.get(0).getVersion());
+					Assert.assertEquals("a & \"b\"\r\nsecond\tline", entries.get(0).getComment());
+					Assert.assertEquals("oid:1", entries.get(0).getEventId());
+					Assert.assertEquals("[/vobs/a/b/x.c, /vobs/a/y.c, /vobs/a, /other/z.c]", 
+					                                         entries.get(0).getAffectedPaths().toString());
+					Assert.assertNull(entries.get(1).getUser());
+					Assert.assertEquals("", entries.get(1).getComment());
+					Assert.assertNull(entries.get(1).getEventId());
+					Assert.assertTrue(entries.get(1).getAffectedPaths().isEmpty());
+
+					Assert.assertEquals(2, parser.countEntries(file));
+					entries = parser.readChangeLog(file, 1, 1);
+					Assert.assertEquals(1, entries.size());
+					Assert.assertEquals(new Date(2000L), entries.get(0).getDate());
+				} finally {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLazySet() throws IOException {
+		List<SimpleClearCaseChangeLogEntry> entries = new ArrayList<SimpleClearCaseChangeLogEntry>();
+		for (int i = 0; i < 10; i++) {
+			entries.add(new SimpleClearCaseChangeLogEntry(new Date(1000L * i), "etavsam", "/vobs/a/" + i + ".c", 
+			                                          "/main/" + i, "create version", "checkin", "comment " + i));
+		}
+		File file = File.createTempFile("changelog", ".xml");
+		try {
+			parser.writeChangeLog(file, new SimpleClearCaseChangeLogSet(null, entries), null, true);
+
+			SimpleClearCaseChangeLogSet set = new SimpleClearCaseChangeLogSet(null, file, 
+			                                                       SimpleClearCaseChangeLogSet.UNKNOWN_SIZE);
+			Assert.assertEquals("counted without reading the entries", 10, set.size());
+			Assert.assertFalse(set.isEmptySet());
+
+			List<SimpleClearCaseChangeLogEntry> page = set.getEntries(3, 4);
+			Assert.assertEquals(4, page.size());
+			Assert.assertEquals("comment 3", page.get(0).getComment());
+			Assert.assertEquals("comment 6", page.get(3).getComment());
+			Assert.assertSame(set, page.get(0).getParent());
+			Assert.assertEquals(2, set.getEntries(8, 100).size());
+			Assert.assertTrue(set.getEntries(10, 1).isEmpty());
+			Assert.assertEquals(10, set.getEntries().size());
+			Assert.assertSame("all entries are kept once read", set.getEntries(), set.getEntries());
+			Assert.assertEquals("comment 3", set.getEntries(3, 1).get(0).getComment());
+
+			Assert.assertEquals(3, new SimpleClearCaseChangeLogSet(null, entries).getEntries(7, 5).size());
+			Assert.assertTrue(new SimpleClearCaseChangeLogSet(null, file, 0).isEmptySet());
+		} finally {
+			file.delete();
+		}
+	}
 }
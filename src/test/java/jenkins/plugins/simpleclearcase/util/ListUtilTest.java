@@ -159,4 +159,104 @@ public class ListUtilTest {
         assertEquals(lastCommit, actual.getBuiltTime(javaRule));
     }
 
+    @Test
+    public void testRemoveEntriesByEventId() {
+        String lr = "/vobs/source/apps/java";
+        List<String> loadRules = Arrays.asList(lr);
+        Date date = new GregorianCalendar(2013, Calendar.JUNE, 01).getTime();
+        LoadRuleDateMap loadRuleMap = new LoadRuleDateMap();
+        loadRuleMap.setBuildTime(lr, date);
+
+        // two events in the same second, where only the first was in the previous build
+        SimpleClearCaseChangeLogEntry seen = new SimpleClearCaseChangeLogEntry(date, "fubar", 
+                lr + "/a.java", "/main/3", "create version", "checkin", "seen");
+        seen.setEventId("oid-1");
+        SimpleClearCaseChangeLogEntry unseen = new SimpleClearCaseChangeLogEntry(date, "fubar", 
+                lr + "/b.java", "/main/4", "create version", "checkin", "unseen");
+        unseen.setEventId("oid-2");
+        List<SimpleClearCaseChangeLogEntry> entries = new ArrayList<SimpleClearCaseChangeLogEntry>(
+                Arrays.asList(seen, unseen));
+
+        Set<String> boundary = ListUtil.getBoundaryEventIds(Arrays.asList(seen), loadRuleMap, loadRules);
+        assertEquals(Collections.singleton("oid-1"), boundary);
+
+        assertTrue(ListUtil.removeEntries(entries, loadRuleMap, loadRules, boundary));
+        assertEquals(Arrays.asList(unseen), entries);
+    }
+
+    @Test
+    public void testGetLatestCommitDatesKeepsPreviousDates() {
+        String javaRule = "/vobs/source/apps/java";
+        String commonRule = "/vobs/source/libs/common";
+        String newRule = "/vobs/source/libs/new";
+        List<String> loadRules = Arrays.asList(javaRule, commonRule, newRule);
+        Date firstCommit = new GregorianCalendar(2013, Calendar.JUNE, 01).getTime();
+        Date lastCommit = new GregorianCalendar(2013, Calendar.JUNE, 11).getTime();
+
+        LoadRuleDateMap previous = new LoadRuleDateMap();
+        previous.setBuildTime(javaRule, firstCommit);
+        previous.setBuildTime(commonRule, firstCommit);
+        previous.setBuildTime("/vobs/source/removed", firstCommit);
+
+        // only the java load rule has entries, the boundary event of the common one wasn't listed
+        List<SimpleClearCaseChangeLogEntry> entries = Arrays.asList(
+                    new SimpleClearCaseChangeLogEntry(lastCommit, "fubar", javaRule + "/build.gradle", 
+                                                      "/main/15", "create version", "checkin", "clean-up"));
+
+        LoadRuleDateMap actual = ListUtil.getLatestCommitDates(entries, loadRules, previous);
+        assertEquals("Newer entries win", lastCommit, actual.getBuiltTime(javaRule));
+        assertEquals("A quiet load rule keeps its date", firstCommit, actual.getBuiltTime(commonRule));
+        assertNull("A load rule without any date stays without", actual.getBuiltTime(newRule));
+        assertFalse("Load rules no longer configured are dropped", actual.containsLoadRule("/vobs/source/removed"));
+        assertEquals("Previous isn't changed", firstCommit, previous.getBuiltTime(javaRule));
+    }
+
+    @Test
+    public void testBoundaryEventIdsOfQuietLoadRule() {
+        String javaRule = "/vobs/source/apps/java";
+        String commonRule = "/vobs/source/libs/common";
+        List<String> loadRules = Arrays.asList(javaRule, commonRule);
+        Date first = new GregorianCalendar(2013, Calendar.JUNE, 01).getTime();
+        Date second = new GregorianCalendar(2013, Calendar.JUNE, 02).getTime();
+        Date third = new GregorianCalendar(2013, Calendar.JUNE, 03).getTime();
+
+        SimpleClearCaseChangeLogEntry java1 = new SimpleClearCaseChangeLogEntry(first, "fubar", 
+                javaRule + "/a.java", "/main/3", "create version", "checkin", "java 1");
+        java1.setEventId("oid-java-1");
+        SimpleClearCaseChangeLogEntry common1 = new SimpleClearCaseChangeLogEntry(first, "fubar", 
+                commonRule + "/a.c", "/main/7", "create version", "checkin", "common 1");
+        common1.setEventId("oid-common-1");
+        SimpleClearCaseChangeLogEntry java2 = new SimpleClearCaseChangeLogEntry(second, "fubar", 
+                javaRule + "/a.java", "/main/4", "create version", "checkin", "java 2");
+        java2.setEventId("oid-java-2");
+        SimpleClearCaseChangeLogEntry common3 = new SimpleClearCaseChangeLogEntry(third, "fubar", 
+                commonRule + "/a.c", "/main/8", "create version", "checkin", "common 3");
+        common3.setEventId("oid-common-3");
+
+        // the first build sees both load rules change
+        List<SimpleClearCaseChangeLogEntry> firstEntries = Arrays.asList(java1, common1);
+        LoadRuleDateMap firstMap = ListUtil.getLatestCommitDates(firstEntries, loadRules);
+        Set<String> firstIds = ListUtil.getBoundaryEventIds(firstEntries, firstMap, loadRules);
+
+        // in the second build common is quiet, the entries are from the central poller, hence 
+        // without the boundary event of common
+        List<SimpleClearCaseChangeLogEntry> secondEntries = Arrays.asList(java2);
+        LoadRuleDateMap secondMap = ListUtil.getLatestCommitDates(secondEntries, loadRules, firstMap);
+        Set<String> secondIds = ListUtil.getBoundaryEventIds(secondEntries, secondMap, loadRules, 
+                                                                                    firstMap, firstIds);
+        assertEquals(first, secondMap.getBuiltTime(commonRule));
+        assertTrue("Boundary event of the quiet load rule is kept", secondIds.contains("oid-common-1"));
+        assertTrue(secondIds.contains("oid-java-2"));
+
+        // in the third build common changes, lshistory lists the boundary events again
+        List<SimpleClearCaseChangeLogEntry> thirdEntries = new ArrayList<SimpleClearCaseChangeLogEntry>(
+                Arrays.asList(java2, common1, common3));
+        assertTrue(ListUtil.removeEntries(thirdEntries, secondMap, loadRules, secondIds));
+        assertEquals("Only the new event is left", Arrays.asList(common3), thirdEntries);
+
+        // if the boundary events are among the entries, the ids of the previous build aren't kept
+        Set<String> fetchedIds = ListUtil.getBoundaryEventIds(Arrays.asList(common1, java2), secondMap, 
+                                                                          loadRules, firstMap, firstIds);
+        assertFalse(fetchedIds.contains("oid-java-1"));
+    }
 }
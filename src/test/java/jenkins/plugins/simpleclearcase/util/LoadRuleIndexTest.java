@@ -0,0 +1,59 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class LoadRuleIndexTest {
+    private static final List<String> LOAD_RULES = Arrays.asList("/vobs/a", "/vobs/a/b/c", "/vobs/a/b", 
+                                             "/vobs/ab", "/vobs/a/b/d", "/vobs/x", "/vobs/a", "/vobs/a/bc");
+
+    @Test
+    public void testMatch() {
+        LoadRuleIndex index = new LoadRuleIndex(LOAD_RULES);
+        String[] paths = { "/vobs/a", "/vobs/a/b/c/file", "/vobs/a/b/e", "/vobs/a/b/d", "/vobs/ab/c", 
+                           "/vobs/a/bcd", "/vobs", "/vobs/y", "/other", "", "/vobs/a/b/cc" };
+
+        Assert.assertEquals("duplicates are removed", 7, index.size());
+
+        for (String path : paths) {
+            BitSet matches = new BitSet();
+            index.match(path, matches);
+
+            for (int i = 0; i < index.size(); i++) {
+                String lr = index.getLoadRule(i);
+                Assert.assertEquals(path + " starts with " + lr, path.startsWith(lr), matches.get(i));
+            }
+        }
+        Assert.assertEquals(-1, index.indexOf("/vobs/b"));
+        Assert.assertEquals("/vobs/x", index.getLoadRule(index.indexOf("/vobs/x")));
+    }
+}
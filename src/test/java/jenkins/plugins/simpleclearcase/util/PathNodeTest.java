@@ -0,0 +1,69 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase.util;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class PathNodeTest {
+    private static final String[] PATHS = { "/vobs/product/src/main.c", "/vobs/product/src/", 
+                                            "M:\\view\\vob\\file.c", "relative/file", "//double", "" };
+
+    @Test
+    public void testToString() {
+        for (String path : PATHS) {
+            Assert.assertEquals(path, PathNode.get(path).toString());
+        }
+        Assert.assertNull(PathNode.get(null));
+    }
+
+    @Test
+    public void testSharedPrefix() {
+        PathNode a = PathNode.get("/vobs/product/src/a.c");
+        PathNode b = PathNode.get("/vobs/product/src/b.c");
+
+        Assert.assertSame(a.getParent(), b.getParent());
+        Assert.assertSame(a.getParent(), PathNode.get("/vobs/product/src"));
+        Assert.assertSame(a, PathNode.get(new String("/vobs/product/src/a.c")));
+        Assert.assertEquals("/a.c", a.getName());
+        Assert.assertEquals("/vobs/product/src/a.c".length(), a.length());
+    }
+
+    @Test
+    public void testStartsWith() {
+        String[] prefixes = { "", "/", "/vobs", "/vobs/", "/vobs/prod", "/vobs/product/src/main.c", 
+                              "/vobs/product/src/main.cc", "/vobs/other", "M:\\view", "relative", "/x" };
+
+        for (String path : PATHS) {
+            PathNode node = PathNode.get(path);
+
+            for (String prefix : prefixes) {
+                Assert.assertEquals(path + " starts with " + prefix, path.startsWith(prefix), 
+                                                                           node.startsWith(prefix));
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * The MIT License
+ * 
+ * Copyright (c) 2011, Sun Microsystems, Inc., Sam Tavakoli
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.plugins.simpleclearcase.util;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TimestampCodecTest {
+    private static final TimeZone ZONE = TimeZone.getTimeZone("Europe/Stockholm");
+
+    private TimestampCodec codec = new TimestampCodec(ZONE);
+
+    private SimpleDateFormat createReference() {
+        SimpleDateFormat ret = new SimpleDateFormat(TimestampCodec.FORMAT);
+        ret.setTimeZone(ZONE);
+        return ret;
+    }
+
+    @Test
+    public void testParseSameAsSimpleDateFormat() throws ParseException {
+        SimpleDateFormat reference = createReference();
+        // ordinary times, times around the daylight saving time changes and a leap day
+        String[] timestamps = { "20110620.134953", "20110620.134954", "20110620.130000", 
+                                "20120101.000000", "20111231.235959", "20110327.015959", 
+                                "20110327.030000", "20111030.023000", "20111030.035959",
+                                "20120229.120000" };
+
+        for (String t : timestamps) {
+            Assert.assertEquals("Decoded as SimpleDateFormat does: " + t, reference.parse(t), codec.parse(t));
+        }
+    }
+
+    @Test
+    public void testParseInvalid() {
+        String[] timestamps = { "", "20110620", "20110620-134953", "2011062a.134953", "20111320.134953", 
+                                "20110230.120000", "20110620.136053", "20110620.134960", "20110620.1349530" };
+
+        for (String t : timestamps) {
+            Assert.assertNull("Invalid timestamp: " + t, codec.parse(t));
+        }
+    }
+
+    @Test
+    public void testParseWithinSequence() throws ParseException {
+        String record = "x20110620.134953\tuser";
+
+        Assert.assertEquals("Decodes the given range only", createReference().parse("20110620.134953").getTime(), 
+                                                                                      codec.parse(record, 1, 16));
+    }
+
+    @Test
+    public void testFormat() throws ParseException {
+        Date date = createReference().parse("20110620.134953");
+
+        Assert.assertEquals("Encoded as FORMAT", "20110620.134953", codec.format(date));
+        Assert.assertEquals("Round trip", date, codec.parse(codec.format(date)));
+    }
+
+    @Test
+    public void testConcurrentParse() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        final SimpleDateFormat reference = createReference();
+        final List<String> timestamps = new ArrayList<String>();
+
+        // more distinct hours than the cache has slots, such that threads replace each others hours
+        for (int day = 1; day <= 28; day++) {
+            for (int hour = 0; hour < 24; hour += 5) {
+                timestamps.add(String.format("201106%02d.%02d%02d%02d", day, hour, day, hour));
+            }
+        }
+
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(pool.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        for (int round = 0; round < 50; round++) {
+                            for (String t : timestamps) {
+                                Date expected;
+                                synchronized (reference) {
+                                    expected = reference.parse(t);
+                                }
+                                if (expected.equals(codec.parse(t)) == false) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+
+            for (Future<Boolean> f : futures) {
+                Assert.assertTrue("All threads decode correctly", f.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}